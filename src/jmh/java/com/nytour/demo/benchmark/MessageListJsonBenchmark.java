@@ -0,0 +1,106 @@
+package com.nytour.demo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nytour.demo.config.MessageListResponseConverter;
+import com.nytour.demo.model.Message;
+import com.nytour.demo.model.MessageListResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the two ways a page of messages can be rendered: the
+ * HashMap envelope handed to Jackson, and MessageListResponseConverter with its
+ * per-version JSON cache. Output goes to a discarding stream so only serialization
+ * is measured. Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args=MessageListJsonBenchmark}
+ * and compare gc.alloc.rate.norm between the two.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class MessageListJsonBenchmark {
+
+    @Param({"50", "500"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private MessageListResponseConverter converter;
+    private List<Message> page;
+    private HttpOutputMessage output;
+
+    @Setup
+    public void setUp() {
+        // Same date handling as application.properties
+        objectMapper = Jackson2ObjectMapperBuilder.json().simpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").build();
+        converter = new MessageListResponseConverter(objectMapper, 10000);
+
+        page = new ArrayList<Message>(pageSize);
+        for (int i = 1; i <= pageSize; i++) {
+            Message message = new Message("benchmark message about topic" + (i % 100), "author" + (i % 1000));
+            message.setId((long) i);
+            message.setChangeSeq((long) i);
+            page.add(message);
+        }
+
+        final OutputStream discard = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+        final HttpHeaders headers = new HttpHeaders();
+        output = new HttpOutputMessage() {
+            public OutputStream getBody() {
+                return discard;
+            }
+
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+    }
+
+    @Benchmark
+    public void mapEnvelope() throws IOException {
+        Map<String, Object> response = new HashMap<String, Object>();
+        response.put("status", "success");
+        response.put("data", page);
+        response.put("count", page.size());
+        response.put("nextCursor", "MTIz");
+        response.put("hasMore", true);
+        objectMapper.writeValue(output.getBody(), response);
+    }
+
+    @Benchmark
+    public void streamingConverter() throws IOException {
+        MessageListResponse response = new MessageListResponse(page, true);
+        response.setNextCursor("MTIz");
+        converter.write(response, MediaType.APPLICATION_JSON, output);
+    }
+}
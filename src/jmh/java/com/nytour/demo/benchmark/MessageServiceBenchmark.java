@@ -0,0 +1,126 @@
+package com.nytour.demo.benchmark;
+
+import com.nytour.demo.Application;
+import com.nytour.demo.model.Message;
+import com.nytour.demo.service.CursorPage;
+import com.nytour.demo.service.MessageChangeSequence;
+import com.nytour.demo.service.MessageSearchIndex;
+import com.nytour.demo.service.MessageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the MessageService hot paths against H2.
+ *
+ * Each trial boots the application context (without the web layer) on a private
+ * in-memory database and seeds it with {@code rows} messages. Content cycles through
+ * 100 topics and authors through 1000 names; creation times are spread over 90 days.
+ * Run with {@code mvn -Pjmh test-compile exec:exec}; the profile adds {@code -prof gc}
+ * for allocation rates. The default datasets fit the 4 GB fork heap; a 10M-row run
+ * needs a larger one and is requested explicitly, e.g.
+ * {@code -Djmh.args="-p rows=10000000 -jvmArgsAppend -Xmx16g MessageServiceBenchmark"}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class MessageServiceBenchmark {
+
+    private static final int TOPICS = 100;
+    private static final int AUTHORS = 1000;
+
+    // One set-based statement instead of millions of round trips
+    private static final String SEED_SQL =
+            "INSERT INTO messages (id, content, author, created_date, updated_date, is_active, change_seq) "
+            + "SELECT X, CONCAT('benchmark message about topic', MOD(X, " + TOPICS + ")), "
+            + "CONCAT('author', MOD(X, " + AUTHORS + ")), "
+            + "DATEADD('MINUTE', -MOD(X, 129600), LOCALTIMESTAMP), NULL, 'Y', X "
+            + "FROM SYSTEM_RANGE(1, ?)";
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private MessageService messageService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Passed as command-line args so they override application.properties
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.sql.init.mode=never",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--spring.h2.console.enabled=false",
+                        "--logging.level.org.springframework.web=INFO",
+                        "--logging.level.org.hibernate.SQL=INFO");
+        messageService = context.getBean(MessageService.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update(SEED_SQL, rows);
+        // Generated ids must start after the seeded range
+        jdbcTemplate.execute("ALTER SEQUENCE message_seq RESTART WITH " + (rows + 1000));
+
+        // Startup hooks ran against the empty table; rebuild the in-memory structures
+        messageService.rebuildSearchIndex();
+        messageService.seedStatistics();
+        context.getBean(MessageChangeSequence.class).seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Message createMessage() {
+        return messageService.createMessage("benchmark insert about topic1", "benchmark");
+    }
+
+    @Benchmark
+    public Message getMessageById() {
+        return messageService.getMessageById(1L + ThreadLocalRandom.current().nextInt(rows));
+    }
+
+    @Benchmark
+    public CursorPage<Message> searchMessages() {
+        String keyword = "topic" + ThreadLocalRandom.current().nextInt(TOPICS);
+        return messageService.searchMessages(keyword, MessageSearchIndex.Operator.AND, null, null);
+    }
+
+    @Benchmark
+    public CursorPage<Message> getMessagesByAuthor() {
+        return messageService.getMessagesByAuthor("author" + ThreadLocalRandom.current().nextInt(AUTHORS), null, null);
+    }
+
+    @Benchmark
+    public CursorPage<Message> getRecentMessages() {
+        return messageService.getRecentMessages(7, null, null);
+    }
+
+    @Benchmark
+    public long getRecentMessageCount() {
+        return messageService.getRecentMessageCount(7);
+    }
+}
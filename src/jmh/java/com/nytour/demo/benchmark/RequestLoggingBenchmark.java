@@ -0,0 +1,99 @@
+package com.nytour.demo.benchmark;
+
+import com.nytour.demo.Application;
+import com.nytour.demo.controller.MessageController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for the GET /api/messages/{id} handler under concurrent load,
+ * comparing logging on the request thread (sync-logging profile) with the async
+ * appenders, and logging every request with keeping 1% of the request lines.
+ *
+ * Messages come from the cache after the first hit, so logging is a large share of
+ * the remaining work. Console output is discarded in the benchmark JVM; the file
+ * appender still writes logs/message-service.log.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class RequestLoggingBenchmark {
+
+    // Ids seeded by data.sql
+    private static final int SEEDED_MESSAGES = 5;
+
+    @Param({"false", "true"})
+    public boolean asyncLogging;
+
+    @Param({"1.0", "0.01"})
+    public String requestSampleRate;
+
+    private PrintStream originalOut;
+    private ConfigurableApplicationContext context;
+    private MessageController controller;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+
+        List<String> args = new ArrayList<String>();
+        args.add("--spring.datasource.url=jdbc:h2:mem:logging-benchmark;DB_CLOSE_DELAY=-1");
+        args.add("--spring.jpa.show-sql=false");
+        args.add("--logging.level.org.hibernate.SQL=INFO");
+        args.add("--messages.logging.request-sample-rate=" + requestSampleRate);
+        if (!asyncLogging) {
+            args.add("--spring.profiles.active=sync-logging");
+        }
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+        controller = context.getBean(MessageController.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> getMessageById() {
+        return controller.getMessageById(1L + ThreadLocalRandom.current().nextInt(SEEDED_MESSAGES), null);
+    }
+}
@@ -2,6 +2,8 @@ package com.nytour.demo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
@@ -13,9 +15,12 @@ import org.springframework.scheduling.annotation.EnableScheduling;
  * - Target migration: Spring Boot 3.x (uses jakarta.*, requires JDK 17+)
  * - @SpringBootApplication replaces XML configuration
  * - @EnableScheduling activates @Scheduled tasks
+ * - @EnableCaching sets up the Caffeine cache manager behind MessageCache
+ * - R2DBC is configured by hand (see R2dbcConfig) so JPA keeps its DataSource
  */
-@SpringBootApplication
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 @EnableScheduling
+@EnableCaching
 public class Application {
 
     public static void main(String[] args) {
@@ -0,0 +1,74 @@
+package com.nytour.demo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Startup self-check for settings that are useful while developing but cost
+ * throughput under load (SQL echo, DEBUG logging, H2 console, ...).
+ *
+ * Under the prod profile each one found is logged as a warning; otherwise they
+ * are listed once at INFO, since the default configuration enables them on purpose.
+ * Logger levels are read from the effective configuration, so settings made on
+ * the command line or in another profile are caught as well.
+ */
+@Component
+public class DiagnosticSettingsCheck {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiagnosticSettingsCheck.class);
+
+    private static final String[] VERBOSE_LOGGERS = {
+        "org.springframework.web", "org.hibernate.SQL", "org.hibernate.type", "com.nytour.demo"
+    };
+
+    @Autowired
+    private Environment environment;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkDiagnosticSettings() {
+        List<String> active = findActiveDiagnostics();
+        if (active.isEmpty()) {
+            return;
+        }
+
+        if (environment.acceptsProfiles(Profiles.of("prod"))) {
+            for (String setting : active) {
+                logger.warn("Diagnostic setting active in production profile: {}", setting);
+            }
+        } else {
+            logger.info("Diagnostic settings active (run with --spring.profiles.active=prod for load): {}", active);
+        }
+    }
+
+    private List<String> findActiveDiagnostics() {
+        List<String> active = new ArrayList<String>();
+        checkFlag(active, "spring.jpa.show-sql");
+        checkFlag(active, "spring.jpa.properties.hibernate.format_sql");
+        checkFlag(active, "spring.jpa.properties.hibernate.generate_statistics");
+        checkFlag(active, "spring.h2.console.enabled");
+        for (String name : VERBOSE_LOGGERS) {
+            if (LoggerFactory.getLogger(name).isDebugEnabled()) {
+                active.add("logging.level." + name + " below INFO");
+            }
+        }
+        if (environment.acceptsProfiles(Profiles.of("sync-logging"))) {
+            active.add("sync-logging profile (log I/O on request threads)");
+        }
+        return active;
+    }
+
+    private void checkFlag(List<String> active, String property) {
+        if (environment.getProperty(property, Boolean.class, false)) {
+            active.add(property + "=true");
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.nytour.demo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the streaming writer for message lists. Boot places HttpMessageConverter
+ * beans ahead of its defaults, so it takes precedence over the generic Jackson
+ * converter for {@link com.nytour.demo.model.MessageListResponse}.
+ */
+@Configuration
+public class MessageJsonConfig {
+
+    @Value("${messages.json-cache.max-size:10000}")
+    private long maxCachedMessages;
+
+    @Bean
+    public MessageListResponseConverter messageListResponseConverter(ObjectMapper objectMapper) {
+        return new MessageListResponseConverter(objectMapper, maxCachedMessages);
+    }
+}
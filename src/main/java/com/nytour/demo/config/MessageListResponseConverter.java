@@ -0,0 +1,148 @@
+package com.nytour.demo.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.nytour.demo.model.Message;
+import com.nytour.demo.model.MessageListResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes {@link MessageListResponse} with a streaming JsonGenerator directly to the
+ * response body, without building an intermediate map.
+ *
+ * The JSON of each message is cached per version (id plus change_seq, which every
+ * write bumps), so a message is serialized once no matter how many pages and clients
+ * it appears in; a cached entry whose version no longer matches is simply rewritten.
+ * Messages without an id or version are serialized every time.
+ */
+public class MessageListResponseConverter extends AbstractHttpMessageConverter<MessageListResponse> {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter messageWriter;
+    private final Cache<Long, CachedJson> cache;
+
+    public MessageListResponseConverter(ObjectMapper objectMapper, long maxCachedMessages) {
+        super(MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+        this.messageWriter = objectMapper.writerFor(Message.class);
+        this.cache = Caffeine.newBuilder().maximumSize(maxCachedMessages).recordStats().build();
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MessageListResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected MessageListResponse readInternal(Class<? extends MessageListResponse> clazz,
+                                               HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("MessageListResponse is write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(MessageListResponse response, HttpOutputMessage outputMessage) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8);
+        try {
+            generator.writeStartObject();
+            generator.writeStringField("status", response.getStatus());
+            generator.writeArrayFieldStart("data");
+            for (Message message : response.getData()) {
+                generator.writeRawValue(toJson(message));
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("count", response.getCount());
+            if (response.getNextCursor() != null) {
+                generator.writeStringField("nextCursor", response.getNextCursor());
+            }
+            if (response.getNextSince() != null) {
+                generator.writeNumberField("nextSince", response.getNextSince());
+            }
+            generator.writeBooleanField("hasMore", response.isHasMore());
+            if (response.getAuthor() != null) {
+                generator.writeStringField("author", response.getAuthor());
+            }
+            if (response.getOperator() != null) {
+                generator.writeStringField("operator", response.getOperator());
+            }
+            if (response.getDays() != null) {
+                generator.writeNumberField("days", response.getDays());
+            }
+            if (response.getTimestamp() != null) {
+                generator.writeStringField("timestamp", response.getTimestamp());
+            }
+            generator.writeEndObject();
+        } finally {
+            generator.close();
+        }
+    }
+
+    /**
+     * Hit/miss figures for the serialized-message cache.
+     */
+    public Map<String, Object> snapshot() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> metrics = new LinkedHashMap<String, Object>();
+        metrics.put("size", cache.estimatedSize());
+        metrics.put("hits", stats.hitCount());
+        metrics.put("misses", stats.missCount());
+        metrics.put("hitRate", stats.hitRate());
+        metrics.put("evictions", stats.evictionCount());
+        return metrics;
+    }
+
+    private SerializableString toJson(Message message) throws JsonProcessingException {
+        Long id = message.getId();
+        Long version = message.getChangeSeq();
+        if (id == null || version == null) {
+            return serialize(message);
+        }
+
+        CachedJson cached = cache.getIfPresent(id);
+        if (cached != null && cached.version == version) {
+            return cached.json;
+        }
+        SerializableString json = serialize(message);
+        cache.put(id, new CachedJson(version, json));
+        return json;
+    }
+
+    private SerializableString serialize(Message message) throws JsonProcessingException {
+        SerializedString json = new SerializedString(messageWriter.writeValueAsString(message));
+        // Encode once up front; the generator copies these bytes as they are
+        json.asUnquotedUTF8();
+        return json;
+    }
+
+    private static final class CachedJson {
+        final long version;
+        final SerializableString json;
+
+        CachedJson(long version, SerializableString json) {
+            this.version = version;
+            this.json = json;
+        }
+    }
+}
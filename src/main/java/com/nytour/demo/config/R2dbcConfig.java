@@ -0,0 +1,44 @@
+package com.nytour.demo.config;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * R2DBC access to the application's H2 database for the reactive /api/v2 endpoints.
+ *
+ * The connection factory is derived from spring.datasource.url so both stacks see
+ * the same database. It is deliberately not exposed as a bean: Boot turns off the
+ * JDBC DataSource (and with it JPA) as soon as an R2DBC ConnectionFactory bean
+ * exists, which is also why R2dbcAutoConfiguration is excluded in Application.
+ */
+@Configuration
+public class R2dbcConfig {
+
+    private static final String H2_URL_PREFIX = "jdbc:h2:";
+
+    @Value("${spring.datasource.url}")
+    private String jdbcUrl;
+
+    @Value("${spring.datasource.username:sa}")
+    private String username;
+
+    @Value("${spring.datasource.password:}")
+    private String password;
+
+    @Bean
+    public DatabaseClient databaseClient() {
+        if (!jdbcUrl.startsWith(H2_URL_PREFIX)) {
+            throw new IllegalStateException("Reactive endpoints require an H2 datasource, got " + jdbcUrl);
+        }
+        H2ConnectionConfiguration configuration = H2ConnectionConfiguration.builder()
+                .url(jdbcUrl.substring(H2_URL_PREFIX.length()))
+                .username(username)
+                .password(password)
+                .build();
+        return DatabaseClient.create(new H2ConnectionFactory(configuration));
+    }
+}
@@ -0,0 +1,36 @@
+package com.nytour.demo.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps only a fraction of the per-request log lines (those logged with
+ * {@link #REQUEST}). Turbo filters run before the logging event is created or the
+ * message formatted, so a dropped line costs a random number and nothing else.
+ * Configured in logback-spring.xml from messages.logging.request-sample-rate.
+ */
+public class RequestLogSamplingFilter extends TurboFilter {
+
+    public static final Marker REQUEST = MarkerFactory.getMarker("REQUEST");
+
+    private volatile double sampleRate = 1.0;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (marker != REQUEST || sampleRate >= 1.0) {
+            return FilterReply.NEUTRAL;
+        }
+        return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate
+                ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+}
@@ -0,0 +1,33 @@
+package com.nytour.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Versioned schema migrations for persistent databases (see the durable profile),
+ * used instead of Hibernate's create-drop. The in-memory default keeps create-drop
+ * and data.sql.
+ */
+@Configuration
+@ConditionalOnProperty(name = "messages.schema.migrations.enabled", havingValue = "true")
+public class SchemaMigrationConfig {
+
+    @Value("${messages.schema.migrations.location:classpath:db/migration}")
+    private String location;
+
+    @Bean
+    public SchemaMigrator schemaMigrator(DataSource dataSource) {
+        return new SchemaMigrator(dataSource, location);
+    }
+
+    // Hibernate validates the schema on startup, so it must wait for the migrations
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnSchemaMigrator() {
+        return new EntityManagerFactoryDependsOnPostProcessor("schemaMigrator");
+    }
+}
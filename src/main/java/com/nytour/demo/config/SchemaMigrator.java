@@ -0,0 +1,126 @@
+package com.nytour.demo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Brings the schema up to date from versioned SQL scripts named V{n}__{description}.sql.
+ *
+ * Applied versions are recorded in schema_history; on startup only scripts with a
+ * higher version run, each in its own transaction, so an up-to-date database costs
+ * a single query. Scripts are never re-run or edited once applied; schema changes
+ * go into a new version.
+ */
+public class SchemaMigrator implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private static final String CREATE_HISTORY_SQL =
+            "CREATE TABLE IF NOT EXISTS schema_history (version INT PRIMARY KEY, "
+            + "description VARCHAR(200) NOT NULL, installed_on TIMESTAMP NOT NULL, execution_ms BIGINT NOT NULL)";
+
+    private static final String INSERT_HISTORY_SQL =
+            "INSERT INTO schema_history (version, description, installed_on, execution_ms) VALUES (?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+    private final String location;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public SchemaMigrator(DataSource dataSource, String location) {
+        this.dataSource = dataSource;
+        this.location = location;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        migrate();
+    }
+
+    /**
+     * @return number of scripts applied
+     */
+    public int migrate() throws IOException {
+        jdbcTemplate.execute(CREATE_HISTORY_SQL);
+        Integer current = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(version), 0) FROM schema_history",
+                Integer.class);
+
+        Map<Integer, Resource> scripts = findScripts();
+        int latest = scripts.isEmpty() ? 0 : ((TreeMap<Integer, Resource>) scripts).lastKey();
+        if (current > latest) {
+            logger.warn("Database schema is at version {}, newer than the latest script V{} in {}",
+                    current, latest, location);
+        }
+
+        int applied = 0;
+        for (Map.Entry<Integer, Resource> script : scripts.entrySet()) {
+            if (script.getKey() > current) {
+                apply(script.getKey(), script.getValue());
+                applied++;
+            }
+        }
+        logger.info("Schema at version {} ({} migrations applied)", Math.max(current, latest), applied);
+        return applied;
+    }
+
+    private Map<Integer, Resource> findScripts() throws IOException {
+        Map<Integer, Resource> scripts = new TreeMap<Integer, Resource>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(location + "/V*__*.sql")) {
+            Matcher matcher = SCRIPT_NAME.matcher(resource.getFilename());
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Migration script name must be V<version>__<description>.sql: "
+                        + resource.getFilename());
+            }
+            Resource previous = scripts.put(Integer.valueOf(matcher.group(1)), resource);
+            if (previous != null) {
+                throw new IllegalStateException("Duplicate migration version " + matcher.group(1) + ": "
+                        + previous.getFilename() + " and " + resource.getFilename());
+            }
+        }
+        return scripts;
+    }
+
+    private void apply(final int version, final Resource script) {
+        final String description = SCRIPT_NAME.matcher(script.getFilename()).replaceFirst("$2").replace('_', ' ');
+        logger.info("Applying migration V{} ({})", version, description);
+        final long start = System.currentTimeMillis();
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                jdbcTemplate.execute(new ConnectionCallback<Void>() {
+                    public Void doInConnection(Connection connection) {
+                        ScriptUtils.executeSqlScript(connection, new EncodedResource(script, StandardCharsets.UTF_8));
+                        return null;
+                    }
+                });
+                jdbcTemplate.update(INSERT_HISTORY_SQL, version, description,
+                        new Timestamp(System.currentTimeMillis()), System.currentTimeMillis() - start);
+            }
+        });
+    }
+}
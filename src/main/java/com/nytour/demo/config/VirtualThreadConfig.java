@@ -0,0 +1,100 @@
+package com.nytour.demo.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Opt-in virtual-thread mode (messages.virtual-threads.enabled, JDK 21+).
+ *
+ * Tomcat hands every request to a new virtual thread instead of its 200-thread
+ * platform pool, and @Scheduled tasks run on virtual threads too. Request
+ * concurrency is then bounded by server.tomcat.max-connections, while database
+ * concurrency stays bounded by the Hikari pool: callers beyond
+ * spring.datasource.hikari.maximum-pool-size park cheaply until a connection frees
+ * up (or connection-timeout expires), so the pool must still be sized for the
+ * database, not for the number of threads.
+ *
+ * The project still compiles for Java 8, so the JDK 21 APIs are looked up
+ * reflectively; enabling the mode on an older JDK fails at startup.
+ */
+@Configuration
+@ConditionalOnProperty(name = "messages.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Value("${server.tomcat.max-connections:8192}")
+    private int maxConnections;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int maxPoolSize;
+
+    // Not owned by Tomcat, so closed with the context
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadRequestExecutor() {
+        ExecutorService executor = newThreadPerTaskExecutor(virtualThreadFactory("http-vt-"));
+        logger.info("Virtual-thread request handling enabled (max-connections={}, connection pool={})",
+                maxConnections, maxPoolSize);
+        return executor;
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(
+            final ExecutorService virtualThreadRequestExecutor) {
+        return new TomcatProtocolHandlerCustomizer<ProtocolHandler>() {
+            public void customize(ProtocolHandler protocolHandler) {
+                protocolHandler.setExecutor(virtualThreadRequestExecutor);
+            }
+        };
+    }
+
+    /**
+     * Replaces Boot's platform-thread scheduler for MessageScheduledTask and the
+     * statistics publisher.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2);
+        scheduler.setThreadFactory(virtualThreadFactory("scheduling-vt-"));
+        return scheduler;
+    }
+
+    // Thread.ofVirtual().name(prefix, 0).factory()
+    static ThreadFactory virtualThreadFactory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw unsupported(e);
+        }
+    }
+
+    // Executors.newThreadPerTaskExecutor(factory)
+    private static ExecutorService newThreadPerTaskExecutor(ThreadFactory factory) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw unsupported(e);
+        }
+    }
+
+    private static IllegalStateException unsupported(ReflectiveOperationException cause) {
+        return new IllegalStateException("messages.virtual-threads.enabled requires a JDK with virtual threads (21+), "
+                + "running on " + System.getProperty("java.version"), cause);
+    }
+}
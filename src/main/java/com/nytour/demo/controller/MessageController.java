@@ -1,23 +1,53 @@
 package com.nytour.demo.controller;
 
+import com.nytour.demo.config.MessageListResponseConverter;
 import com.nytour.demo.model.Message;
+import com.nytour.demo.model.MessageListResponse;
+import com.nytour.demo.service.CursorPage;
+import com.nytour.demo.service.MessageCacheMetrics;
+import com.nytour.demo.service.MessageEventBroadcaster;
+import com.nytour.demo.service.MessageNotFoundException;
+import com.nytour.demo.service.MessageSearchIndex;
 import com.nytour.demo.service.MessageService;
-import org.apache.log4j.Logger;
+import com.nytour.demo.service.MessageVersionConflictException;
+import com.nytour.demo.service.MessageWriteBehindQueue;
+import com.nytour.demo.service.RollingMessageCounter;
+import com.nytour.demo.service.SearchIndexWarmingException;
+import com.nytour.demo.service.TimestampService;
+import com.nytour.demo.service.WriteBehindQueueFullException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
-import java.text.SimpleDateFormat;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+
+import static com.nytour.demo.config.RequestLogSamplingFilter.REQUEST;
 
 /**
  * Message Controller - Legacy Spring Boot 2.7.x patterns
@@ -25,8 +55,8 @@ import java.util.Map;
  * MIGRATION CHALLENGES:
  * 1. @Controller + @ResponseBody instead of @RestController
  * 2. Old-style @RequestMapping with method parameter (instead of @GetMapping)
- * 3. Log4j 1.x (deprecated) will migrate to SLF4J
- * 4. SimpleDateFormat (not thread-safe) will migrate to DateTimeFormatter
+ * 3. Logging goes through SLF4J; per-request lines carry the sampled REQUEST marker
+ * 4. Timestamps come from TimestampService (java.time, formatted once per second)
  * 5. Field injection instead of constructor injection
  * 6. Manual ResponseEntity creation
  * 7. java.util.Date will migrate to java.time.LocalDateTime
@@ -36,41 +66,150 @@ import java.util.Map;
 @RequestMapping("/api/messages")
 public class MessageController {
 
-    // Log4j 1.x (deprecated, migrate to SLF4J)
-    private static final Logger logger = Logger.getLogger(MessageController.class);
+    private static final Logger logger = LoggerFactory.getLogger(MessageController.class);
 
     // Field injection (legacy pattern)
     @Autowired
     private MessageService messageService;
 
-    // SimpleDateFormat (not thread-safe, deprecated pattern)
-    private static final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    @Autowired
+    private MessageCacheMetrics messageCacheMetrics;
+
+    @Autowired
+    private MessageWriteBehindQueue writeBehindQueue;
+
+    @Autowired
+    private MessageEventBroadcaster eventBroadcaster;
+
+    @Autowired
+    private MessageListResponseConverter messageListResponseConverter;
+
+    @Autowired
+    private TimestampService timestamps;
+
+    // Used to validate batch items one by one (@Valid on a List only checks the list itself)
+    @Autowired
+    private Validator validator;
+
+    // Spring's configured mapper, so export dates match the regular JSON endpoints
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // DELETE /author/{author} is a mass delete with no access control, so it is opt-in
+    @Value("${messages.bulk-delete.enabled:false}")
+    private boolean bulkDeleteEnabled;
 
     /**
-     * Get all messages - Using @ResponseBody to return JSON
+     * Get messages one keyset page at a time - Using @ResponseBody to return JSON
+     *
+     * The first page is requested without a cursor; each response carries a
+     * nextCursor that the client passes back to fetch the following page.
      */
     @RequestMapping(method = RequestMethod.GET)
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> getAllMessages(HttpServletRequest request) {
-        logger.info("GET /messages - Fetching all messages");
+    public ResponseEntity<?> getAllMessages(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        logger.info(REQUEST, "GET /messages - Fetching message page, cursor={}, limit={}", cursor, limit);
         
         try {
-            List<Message> messages = messageService.getAllMessages();
+            CursorPage<Message> page = messageService.getMessagePage(cursor, limit);
             
-            // Manual response building (legacy pattern)
-            Map<String, Object> response = new HashMap<String, Object>();
-            response.put("status", "success");
-            response.put("data", messages);
-            response.put("count", messages.size());
-            response.put("timestamp", dateFormat.format(new Date())); // Using deprecated Date and SimpleDateFormat
+            MessageListResponse response = toListResponse(page);
+            response.setTimestamp(timestamps.now());
             
-            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.OK);
+            return new ResponseEntity<MessageListResponse>(response, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid page request", e);
+            return handleError(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             logger.error("Error fetching messages", e);
             return handleError("Failed to fetch messages", HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * Export every message as newline-delimited JSON
+     *
+     * Rows are read through a database cursor and written straight to the
+     * servlet output stream, so heap usage does not grow with table size.
+     */
+    @RequestMapping(value = "/export", method = RequestMethod.GET)
+    public void exportMessages(HttpServletResponse response) throws IOException {
+        logger.info(REQUEST, "GET /messages/export");
+
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+
+        final JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        generator.setRootValueSeparator(null);
+        final ObjectWriter writer = objectMapper.writerFor(Message.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try {
+            long exported = messageService.exportAllMessages(message -> {
+                try {
+                    writer.writeValue(generator, message);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            logger.info("Exported {} messages", exported);
+        } catch (UncheckedIOException e) {
+            // Client went away mid-stream; the response is already committed
+            logger.error("Export aborted", e);
+        } finally {
+            generator.close();
+        }
+    }
+
+    /**
+     * Incremental change feed: messages created or updated after change sequence "since"
+     *
+     * Start with since=0 and pass the returned nextSince back to get the next
+     * batch; when hasMore is false the client is caught up and can poll again later
+     * with the same nextSince.
+     */
+    @RequestMapping(value = "/changes", method = RequestMethod.GET)
+    @ResponseBody
+    public ResponseEntity<?> getChanges(
+            @RequestParam(value = "since", defaultValue = "0") long since,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        logger.info(REQUEST, "GET /messages/changes?since={}&limit={}", since, limit);
+
+        try {
+            CursorPage<Message> page = messageService.getChangesSince(since, limit);
+            List<Message> changes = page.getItems();
+
+            MessageListResponse response = new MessageListResponse(changes, page.hasMore());
+            response.setNextSince(changes.isEmpty() ? since : changes.get(changes.size() - 1).getChangeSeq());
+            response.setTimestamp(timestamps.now());
+
+            return new ResponseEntity<MessageListResponse>(response, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return handleError(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Live feed of committed creates, updates and deletes as server-sent events
+     *
+     * Events are named created/updated/deleted and carry the message as JSON;
+     * comment heartbeats keep idle connections open. Slow consumers are
+     * disconnected once their buffer fills up, and simply reconnect.
+     */
+    @RequestMapping(value = "/stream", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamMessageEvents() {
+        logger.info(REQUEST, "GET /messages/stream");
+
+        SseEmitter emitter = eventBroadcaster.subscribe();
+        if (emitter == null) {
+            return new ResponseEntity<SseEmitter>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return new ResponseEntity<SseEmitter>(emitter, HttpStatus.OK);
+    }
+
     /**
      * Get message by ID
      */
@@ -80,7 +219,7 @@ public class MessageController {
             @PathVariable("id") Long id,
             HttpServletResponse response) {
         
-        logger.info("GET /messages/" + id);
+        logger.info(REQUEST, "GET /messages/{}", id);
         
         try {
             Message message = messageService.getMessageById(id);
@@ -89,9 +228,9 @@ public class MessageController {
             responseMap.put("status", "success");
             responseMap.put("data", message);
             
-            return new ResponseEntity<Map<String, Object>>(responseMap, HttpStatus.OK);
+            return new ResponseEntity<Map<String, Object>>(responseMap, versionHeaders(message), HttpStatus.OK);
         } catch (RuntimeException e) {
-            logger.error("Message not found: " + id, e);
+            logger.error("Message not found: {}", id, e);
             return handleError("Message not found with id: " + id, HttpStatus.NOT_FOUND);
         }
     }
@@ -104,7 +243,11 @@ public class MessageController {
     public ResponseEntity<Map<String, Object>> createMessage(
             @Valid @RequestBody CreateMessageRequest request) {
         
-        logger.info("POST /messages - Creating message from author: " + request.getAuthor());
+        logger.info(REQUEST, "POST /messages - Creating message from author: {}", request.getAuthor());
+        
+        if (writeBehindQueue.isEnabled()) {
+            return enqueueMessage(request);
+        }
         
         try {
             Message message = messageService.createMessage(request.getContent(), request.getAuthor());
@@ -113,7 +256,7 @@ public class MessageController {
             response.put("status", "success");
             response.put("message", "Message created successfully");
             response.put("data", message);
-            response.put("createdAt", dateFormat.format(new Date()));
+            response.put("createdAt", timestamps.now());
             
             return new ResponseEntity<Map<String, Object>>(response, HttpStatus.CREATED);
         } catch (IllegalArgumentException e) {
@@ -122,26 +265,128 @@ public class MessageController {
         }
     }
 
+    // Write-behind mode: acknowledge with 202 once the message is buffered, 429 when the buffer is full
+    private ResponseEntity<Map<String, Object>> enqueueMessage(CreateMessageRequest request) {
+        try {
+            Message message = writeBehindQueue.enqueue(request.getContent(), request.getAuthor());
+            
+            Map<String, Object> response = new HashMap<String, Object>();
+            response.put("status", "accepted");
+            response.put("message", "Message queued for creation");
+            response.put("data", message);
+            response.put("createdAt", timestamps.now());
+            
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.ACCEPTED);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid message data", e);
+            return handleError(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (WriteBehindQueueFullException e) {
+            logger.warn("Rejecting message: {}", e.getMessage());
+            return handleError(e.getMessage(), HttpStatus.TOO_MANY_REQUESTS);
+        }
+    }
+
+    /**
+     * Create many messages in one request
+     *
+     * Every item is validated on its own; valid items are inserted together in a
+     * single transaction using JDBC batching, and the response reports a result
+     * per item in request order.
+     */
+    @RequestMapping(value = "/batch", method = RequestMethod.POST)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> createMessages(
+            @RequestBody List<CreateMessageRequest> requests) {
+        
+        logger.info(REQUEST, "POST /messages/batch - Creating {} messages", requests.size());
+        
+        if (requests.size() > MessageService.MAX_BATCH_SIZE) {
+            return handleError("Batch cannot exceed " + MessageService.MAX_BATCH_SIZE + " messages",
+                    HttpStatus.BAD_REQUEST);
+        }
+        
+        List<Map<String, Object>> results = new ArrayList<Map<String, Object>>(requests.size());
+        List<Message> valid = new ArrayList<Message>();
+        List<Map<String, Object>> validResults = new ArrayList<Map<String, Object>>();
+        
+        for (int i = 0; i < requests.size(); i++) {
+            CreateMessageRequest item = requests.get(i);
+            Map<String, Object> result = new HashMap<String, Object>();
+            result.put("index", i);
+            
+            List<String> errors = new ArrayList<String>();
+            if (item == null) {
+                errors.add("item cannot be null");
+            } else {
+                Set<ConstraintViolation<CreateMessageRequest>> violations = validator.validate(item);
+                for (ConstraintViolation<CreateMessageRequest> violation : violations) {
+                    errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+                }
+            }
+            
+            if (errors.isEmpty()) {
+                valid.add(new Message(item.getContent(), item.getAuthor()));
+                validResults.add(result);
+            } else {
+                result.put("status", "invalid");
+                result.put("errors", errors);
+            }
+            results.add(result);
+        }
+        
+        try {
+            List<Message> created = messageService.createMessages(valid);
+            for (int i = 0; i < created.size(); i++) {
+                validResults.get(i).put("status", "created");
+                validResults.get(i).put("id", created.get(i).getId());
+            }
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid batch data", e);
+            return handleError(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        
+        Map<String, Object> response = new HashMap<String, Object>();
+        response.put("status", valid.size() == requests.size() ? "success" : "partial");
+        response.put("created", valid.size());
+        response.put("rejected", requests.size() - valid.size());
+        response.put("results", results);
+        response.put("createdAt", timestamps.now());
+        
+        HttpStatus status = valid.isEmpty() && !requests.isEmpty() ? HttpStatus.BAD_REQUEST
+                : valid.size() == requests.size() ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return new ResponseEntity<Map<String, Object>>(response, status);
+    }
+
     /**
      * Update message
+     *
+     * Applied as a single UPDATE. Responses carry the message version as an ETag;
+     * sending it back in If-Match makes the update conditional (412 if it changed).
      */
     @RequestMapping(value = "/{id}", method = RequestMethod.PUT)
     @ResponseBody
     public ResponseEntity<Map<String, Object>> updateMessage(
             @PathVariable("id") Long id,
-            @RequestBody UpdateMessageRequest request) {
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @Valid @RequestBody UpdateMessageRequest request) {
         
-        logger.info("PUT /messages/" + id);
+        logger.info(REQUEST, "PUT /messages/{}", id);
         
         try {
-            Message message = messageService.updateMessage(id, request.getContent());
+            Message message = messageService.updateMessage(id, request.getContent(), parseIfMatch(ifMatch));
             
             Map<String, Object> response = new HashMap<String, Object>();
             response.put("status", "success");
             response.put("message", "Message updated successfully");
             response.put("data", message);
             
-            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.OK);
+            return new ResponseEntity<Map<String, Object>>(response, versionHeaders(message), HttpStatus.OK);
+        } catch (MessageNotFoundException e) {
+            return handleError(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (MessageVersionConflictException e) {
+            return handleError(e.getMessage(), HttpStatus.PRECONDITION_FAILED);
+        } catch (IllegalArgumentException e) {
+            return handleError(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (RuntimeException e) {
             logger.error("Error updating message", e);
             return handleError("Failed to update message", HttpStatus.INTERNAL_SERVER_ERROR);
@@ -154,7 +399,7 @@ public class MessageController {
     @RequestMapping(value = "/{id}", method = RequestMethod.DELETE)
     @ResponseBody
     public ResponseEntity<Map<String, Object>> deleteMessage(@PathVariable("id") Long id) {
-        logger.info("DELETE /messages/" + id);
+        logger.info(REQUEST, "DELETE /messages/{}", id);
         
         try {
             messageService.deleteMessage(id);
@@ -164,63 +409,228 @@ public class MessageController {
             response.put("message", "Message deleted successfully");
             
             return new ResponseEntity<Map<String, Object>>(response, HttpStatus.OK);
+        } catch (MessageNotFoundException e) {
+            return handleError(e.getMessage(), HttpStatus.NOT_FOUND);
         } catch (RuntimeException e) {
             logger.error("Error deleting message", e);
-            return handleError("Failed to delete message", HttpStatus.NOT_FOUND);
+            return handleError("Failed to delete message", HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     /**
-     * Search messages by keyword
+     * Search messages by keyword, one page at a time
+     *
+     * Keywords are matched as whole words through the full-text index (a
+     * trailing '*' matches a prefix); operator=and|or controls whether every
+     * keyword or any keyword must match. Results are ranked by relevance.
+     * Without a keyword this is a plain page of messages ordered by id.
      */
     @RequestMapping(value = "/search", method = RequestMethod.GET)
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> searchMessages(
-            @RequestParam(value = "keyword", required = false) String keyword) {
+    public ResponseEntity<?> searchMessages(
+            @RequestParam(value = "keyword", required = false) String keyword,
+            @RequestParam(value = "operator", defaultValue = "and") String operator,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
         
-        logger.info("GET /messages/search?keyword=" + keyword);
+        logger.info(REQUEST, "GET /messages/search?keyword={}&operator={}", keyword, operator);
         
-        List<Message> messages = messageService.searchMessages(keyword);
-        
-        Map<String, Object> response = new HashMap<String, Object>();
-        response.put("status", "success");
-        response.put("data", messages);
-        response.put("count", messages.size());
-        
-        return new ResponseEntity<Map<String, Object>>(response, HttpStatus.OK);
+        try {
+            MessageSearchIndex.Operator searchOperator = MessageSearchIndex.Operator.parse(operator);
+            CursorPage<Message> page = messageService.searchMessages(keyword, searchOperator, cursor, limit);
+            
+            MessageListResponse response = toListResponse(page);
+            response.setOperator(searchOperator.name().toLowerCase(Locale.ROOT));
+            
+            return new ResponseEntity<MessageListResponse>(response, HttpStatus.OK);
+        } catch (SearchIndexWarmingException e) {
+            return handleError(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid search request", e);
+            return handleError(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
     }
 
     /**
-     * Get messages by author
+     * Get messages by author, newest first, one keyset page at a time
      */
     @RequestMapping(value = "/author/{author}", method = RequestMethod.GET)
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> getMessagesByAuthor(@PathVariable("author") String author) {
-        logger.info("GET /messages/author/" + author);
+    public ResponseEntity<?> getMessagesByAuthor(
+            @PathVariable("author") String author,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        logger.info(REQUEST, "GET /messages/author/{}, cursor={}, limit={}", author, cursor, limit);
+        
+        try {
+            CursorPage<Message> page = messageService.getMessagesByAuthor(author, cursor, limit);
+            
+            MessageListResponse response = toListResponse(page);
+            response.setAuthor(author);
+            
+            return new ResponseEntity<MessageListResponse>(response, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid page request", e);
+            return handleError(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Delete all messages of an author (admin purge)
+     *
+     * Disabled unless messages.bulk-delete.enabled=true, since the app has no
+     * access control. Runs as a series of chunked set-based deletes, each committed
+     * on its own, and reports how many messages were removed.
+     */
+    @RequestMapping(value = "/author/{author}", method = RequestMethod.DELETE)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> deleteMessagesByAuthor(@PathVariable("author") String author) {
+        logger.info(REQUEST, "DELETE /messages/author/{}", author);
+
+        if (!bulkDeleteEnabled) {
+            return handleError("Bulk delete by author is disabled", HttpStatus.FORBIDDEN);
+        }
+
+        try {
+            long deleted = messageService.deleteMessagesByAuthor(author);
+
+            Map<String, Object> response = new HashMap<String, Object>();
+            response.put("status", "success");
+            response.put("author", author);
+            response.put("deleted", deleted);
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return handleError(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (RuntimeException e) {
+            // Chunks committed so far stay deleted; repeating the request finishes the job
+            logger.error("Error deleting messages of {}", author, e);
+            return handleError("Failed to delete messages; repeat the request to delete the rest",
+                    HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Get active messages from the last N days, newest first, one keyset page at a time
+     */
+    @RequestMapping(value = "/recent", method = RequestMethod.GET)
+    @ResponseBody
+    public ResponseEntity<?> getRecentMessages(
+            @RequestParam(value = "days", defaultValue = "7") int days,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        logger.info(REQUEST, "GET /messages/recent?days={}, cursor={}, limit={}", days, cursor, limit);
         
-        List<Message> messages = messageService.getMessagesByAuthor(author);
+        try {
+            CursorPage<Message> page = messageService.getRecentMessages(days, cursor, limit);
+            
+            MessageListResponse response = toListResponse(page);
+            response.setDays(days);
+            
+            return new ResponseEntity<MessageListResponse>(response, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid page request", e);
+            return handleError(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Get statistics - served from the precomputed snapshot, no database access
+     */
+    @RequestMapping(value = "/stats", method = RequestMethod.GET)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getStatistics() {
+        logger.info(REQUEST, "GET /messages/stats");
         
         Map<String, Object> response = new HashMap<String, Object>();
         response.put("status", "success");
-        response.put("data", messages);
-        response.put("author", author);
+        response.put("data", messageService.getStatistics());
+        response.put("timestamp", timestamps.now());
         
         return new ResponseEntity<Map<String, Object>>(response, HttpStatus.OK);
     }
 
     /**
-     * Get statistics - Using ModelAndView (legacy pattern)
+     * Messages created per minute (last 24h) or per hour (last 30 days), from the rolling counters
      */
-    @RequestMapping(value = "/stats", method = RequestMethod.GET)
-    public ModelAndView getStatistics() {
-        logger.info("GET /messages/stats");
+    @RequestMapping(value = "/stats/timeseries", method = RequestMethod.GET)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getStatisticsTimeSeries(
+            @RequestParam(value = "resolution", defaultValue = "hour") String resolution,
+            @RequestParam(value = "buckets", required = false) Integer buckets) {
+        logger.info(REQUEST, "GET /messages/stats/timeseries?resolution={}&buckets={}", resolution, buckets);
+
+        try {
+            RollingMessageCounter.Resolution bucketResolution = RollingMessageCounter.Resolution.parse(resolution);
+            // Default to one hour of minutes or one day of hours
+            int bucketCount = buckets != null ? buckets
+                    : bucketResolution == RollingMessageCounter.Resolution.MINUTE ? 60 : 24;
+
+            List<Map<String, Object>> series = new ArrayList<Map<String, Object>>();
+            for (Map.Entry<Date, Long> bucket
+                    : messageService.getCreatedTimeSeries(bucketResolution, bucketCount).entrySet()) {
+                Map<String, Object> point = new LinkedHashMap<String, Object>();
+                point.put("start", bucket.getKey());
+                point.put("count", bucket.getValue());
+                series.add(point);
+            }
+
+            Map<String, Object> response = new HashMap<String, Object>();
+            response.put("status", "success");
+            response.put("resolution", bucketResolution.name().toLowerCase(Locale.ROOT));
+            response.put("bucketMillis", bucketResolution.getBucketMillis());
+            response.put("data", series);
+            response.put("timestamp", timestamps.now());
+
+            return new ResponseEntity<Map<String, Object>>(response, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return handleError(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Hit/miss/eviction figures for the message-by-id cache
+     */
+    @RequestMapping(value = "/cache/stats", method = RequestMethod.GET)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getCacheStatistics() {
+        logger.info(REQUEST, "GET /messages/cache/stats");
         
-        ModelAndView mav = new ModelAndView("stats"); // Returns a view name
-        mav.addObject("totalMessages", messageService.getAllMessages().size());
-        mav.addObject("activeMessages", messageService.getActiveMessageCount());
-        mav.addObject("timestamp", dateFormat.format(new Date()));
+        Map<String, Object> response = new HashMap<String, Object>();
+        response.put("status", "success");
+        response.put("data", messageCacheMetrics.snapshot());
+        response.put("json", messageListResponseConverter.snapshot());
+        response.put("timestamp", timestamps.now());
         
-        return mav;
+        return new ResponseEntity<Map<String, Object>>(response, HttpStatus.OK);
+    }
+
+    // List endpoints share one typed envelope, streamed by MessageListResponseConverter
+    private static MessageListResponse toListResponse(CursorPage<Message> page) {
+        MessageListResponse response = new MessageListResponse(page.getItems(), page.hasMore());
+        response.setNextCursor(page.getNextCursor());
+        return response;
+    }
+
+    // The message version is its change_seq
+    private static HttpHeaders versionHeaders(Message message) {
+        HttpHeaders headers = new HttpHeaders();
+        if (message.getChangeSeq() != null) {
+            headers.setETag("\"" + message.getChangeSeq() + "\"");
+        }
+        return headers;
+    }
+
+    // Accepts "123" or W/"123"; "*" or no header means unconditional. Anything else can never match.
+    private static Long parseIfMatch(String ifMatch) {
+        if (StringUtils.isBlank(ifMatch) || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = StringUtils.removeStart(ifMatch.trim(), "W/");
+        try {
+            return Long.valueOf(StringUtils.strip(tag, "\""));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
     }
 
     // Helper method for error responses
@@ -228,7 +638,7 @@ public class MessageController {
         Map<String, Object> errorResponse = new HashMap<String, Object>();
         errorResponse.put("status", "error");
         errorResponse.put("message", message);
-        errorResponse.put("timestamp", dateFormat.format(new Date()));
+        errorResponse.put("timestamp", timestamps.now());
         
         return new ResponseEntity<Map<String, Object>>(errorResponse, status);
     }
@@ -240,7 +650,9 @@ public class MessageController {
         @javax.validation.constraints.Size(min = 1, max = 500)
         private String content;
         
-        @javax.validation.constraints.NotNull
+        // Same bound as the author column
+        @javax.validation.constraints.NotBlank
+        @javax.validation.constraints.Size(max = 255)
         private String author;
 
         public String getContent() {
@@ -0,0 +1,128 @@
+package com.nytour.demo.controller;
+
+import com.nytour.demo.model.Message;
+import com.nytour.demo.service.ReactiveMessageService;
+import com.nytour.demo.service.TimestampService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.nytour.demo.config.RequestLogSamplingFilter.REQUEST;
+
+/**
+ * Reactive message API (/api/v2/messages) next to the blocking MessageController.
+ *
+ * Handlers return Mono/Flux, which Spring MVC serves through Servlet async
+ * requests: no container thread is held while a request waits on the database or
+ * a slow client. Collection endpoints stream as application/x-ndjson or
+ * text/event-stream, requesting one row from R2DBC per element written, so a
+ * slow reader throttles the query instead of buffering the table in memory.
+ * Clients that only accept application/json still get a plain JSON array, but
+ * MVC collects that one in memory first, so large reads should use a stream type.
+ * Request bodies use the same validation rules as /api/messages.
+ */
+@Controller
+@RequestMapping("/api/v2/messages")
+public class ReactiveMessageController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveMessageController.class);
+
+    @Autowired
+    private ReactiveMessageService reactiveMessageService;
+
+    @Autowired
+    private TimestampService timestamps;
+
+    @RequestMapping(method = RequestMethod.GET,
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE,
+                    MediaType.APPLICATION_JSON_VALUE})
+    @ResponseBody
+    public Flux<Message> streamMessages() {
+        logger.info(REQUEST, "GET /v2/messages");
+        return reactiveMessageService.streamMessages();
+    }
+
+    @RequestMapping(value = "/author/{author}", method = RequestMethod.GET,
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE,
+                    MediaType.APPLICATION_JSON_VALUE})
+    @ResponseBody
+    public Flux<Message> streamMessagesByAuthor(@PathVariable("author") String author) {
+        logger.info(REQUEST, "GET /v2/messages/author/{}", author);
+        return reactiveMessageService.streamMessagesByAuthor(author);
+    }
+
+    @RequestMapping(value = "/{id}", method = RequestMethod.GET)
+    @ResponseBody
+    public Mono<ResponseEntity<Map<String, Object>>> getMessageById(@PathVariable("id") final Long id) {
+        logger.info(REQUEST, "GET /v2/messages/{}", id);
+        return reactiveMessageService.getMessageById(id)
+                .map(message -> success(message, null, HttpStatus.OK))
+                .defaultIfEmpty(handleError("Message not found with id: " + id, HttpStatus.NOT_FOUND));
+    }
+
+    @RequestMapping(method = RequestMethod.POST)
+    @ResponseBody
+    public Mono<ResponseEntity<Map<String, Object>>> createMessage(
+            @Valid @RequestBody MessageController.CreateMessageRequest request) {
+        logger.info(REQUEST, "POST /v2/messages - Creating message from author: {}", request.getAuthor());
+        return reactiveMessageService.createMessage(request.getContent(), request.getAuthor())
+                .map(message -> success(message, "Message created successfully", HttpStatus.CREATED))
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> Mono.just(handleError(e.getMessage(), HttpStatus.BAD_REQUEST)));
+    }
+
+    @RequestMapping(value = "/{id}", method = RequestMethod.PUT)
+    @ResponseBody
+    public Mono<ResponseEntity<Map<String, Object>>> updateMessage(
+            @PathVariable("id") final Long id,
+            @Valid @RequestBody MessageController.UpdateMessageRequest request) {
+        logger.info(REQUEST, "PUT /v2/messages/{}", id);
+        return reactiveMessageService.updateMessage(id, request.getContent())
+                .map(message -> success(message, "Message updated successfully", HttpStatus.OK))
+                .defaultIfEmpty(handleError("Message not found with id: " + id, HttpStatus.NOT_FOUND))
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> Mono.just(handleError(e.getMessage(), HttpStatus.BAD_REQUEST)));
+    }
+
+    @RequestMapping(value = "/{id}", method = RequestMethod.DELETE)
+    @ResponseBody
+    public Mono<ResponseEntity<Map<String, Object>>> deleteMessage(@PathVariable("id") final Long id) {
+        logger.info(REQUEST, "DELETE /v2/messages/{}", id);
+        return reactiveMessageService.deleteMessage(id)
+                .map(deleted -> deleted
+                        ? success(null, "Message deleted successfully", HttpStatus.OK)
+                        : handleError("Message not found with id: " + id, HttpStatus.NOT_FOUND));
+    }
+
+    private ResponseEntity<Map<String, Object>> success(Message message, String text, HttpStatus status) {
+        Map<String, Object> response = new HashMap<String, Object>();
+        response.put("status", "success");
+        if (text != null) {
+            response.put("message", text);
+        }
+        if (message != null) {
+            response.put("data", message);
+        }
+        response.put("timestamp", timestamps.now());
+        return new ResponseEntity<Map<String, Object>>(response, status);
+    }
+
+    private ResponseEntity<Map<String, Object>> handleError(String message, HttpStatus status) {
+        Map<String, Object> errorResponse = new HashMap<String, Object>();
+        errorResponse.put("status", "error");
+        errorResponse.put("message", message);
+        errorResponse.put("timestamp", timestamps.now());
+        return new ResponseEntity<Map<String, Object>>(errorResponse, status);
+    }
+}
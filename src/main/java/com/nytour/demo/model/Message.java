@@ -1,6 +1,7 @@
 package com.nytour.demo.model;
 
 import org.hibernate.annotations.Type;
+import org.hibernate.annotations.Where;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -17,11 +18,33 @@ import java.util.Date;
  * 4. Primitive wrapper constructors (new Long()) are deprecated in Java 9+
  */
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+    // Author timeline: WHERE author = ? ORDER BY created_date DESC, id DESC
+    @Index(name = "idx_messages_author_created", columnList = "author, created_date DESC, id DESC"),
+    // Recent active messages: WHERE is_active = 'Y' AND created_date > ?
+    @Index(name = "idx_messages_active_created", columnList = "is_active, created_date DESC, id DESC"),
+    // Change feed: WHERE change_seq > ? ORDER BY change_seq
+    @Index(name = "idx_messages_change_seq", columnList = "change_seq"),
+    // Compaction: WHERE deleted_at < ?
+    @Index(name = "idx_messages_deleted_at", columnList = "deleted_at")
+})
+// Soft-deleted rows stay invisible to every JPA read until compaction purges them
+@Where(clause = "deleted_at IS NULL")
 public class Message {
 
+    // Ids handed out per sequence round trip (pooled optimizer)
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Column widths of content and author
+    public static final int CONTENT_MAX_LENGTH = 500;
+    public static final int AUTHOR_MAX_LENGTH = 255;
+
+    // Pooled sequence so Hibernate can batch inserts; starts at 100 to stay
+    // clear of the explicit ids in data.sql
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "message_seq")
+    @SequenceGenerator(name = "message_seq", sequenceName = "message_seq", initialValue = 100,
+            allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @NotNull(message = "Content cannot be null")
@@ -46,6 +69,15 @@ public class Message {
     @Type(type = "yes_no") // Hibernate 4.x specific type annotation
     private Boolean active;
 
+    // Position in the change feed, reassigned on every write (see MessageChangeSequence)
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    // Set by a soft delete; the row is purged once this is older than the compaction retention
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "deleted_at")
+    private Date deletedAt;
+
     // Default constructor required by JPA
     public Message() {
         // Initialize with deprecated Date constructor
@@ -125,6 +157,22 @@ public class Message {
         this.active = active;
     }
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
+    public Date getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(Date deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
     @Override
     public String toString() {
         return "Message{" +
@@ -0,0 +1,38 @@
+package com.nytour.demo.model;
+
+/**
+ * Total/active/inactive message counts, produced by a single aggregate query
+ * so callers never have to load entities just to count them.
+ */
+public class MessageCounts {
+
+    private final long total;
+    private final long active;
+
+    // Used by the JPQL constructor expression; SUM over an empty table yields null
+    public MessageCounts(Long total, Long active) {
+        this.total = total == null ? 0L : total;
+        this.active = active == null ? 0L : active;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getActive() {
+        return active;
+    }
+
+    public long getInactive() {
+        return total - active;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageCounts{" +
+                "total=" + total +
+                ", active=" + active +
+                ", inactive=" + getInactive() +
+                '}';
+    }
+}
@@ -0,0 +1,48 @@
+package com.nytour.demo.model;
+
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * A committed change to a message, as pushed to /api/messages/stream subscribers.
+ * Deleted events carry only the id.
+ */
+public class MessageEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED;
+
+        // SSE event name
+        public String eventName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Type type;
+    private final Long messageId;
+    private final Message message;
+    private final Date occurredAt;
+
+    public MessageEvent(Type type, Long messageId, Message message) {
+        this.type = type;
+        this.messageId = messageId;
+        this.message = message;
+        this.occurredAt = new Date();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getMessageId() {
+        return messageId;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    public Date getOccurredAt() {
+        return occurredAt;
+    }
+}
@@ -0,0 +1,97 @@
+package com.nytour.demo.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+/**
+ * Response envelope for the endpoints that return a list of messages.
+ *
+ * Serialized by MessageListResponseConverter, which streams it straight to the
+ * response body; fields that are null are left out.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"status", "data", "count", "nextCursor", "nextSince", "hasMore",
+        "author", "operator", "days", "timestamp"})
+public class MessageListResponse {
+
+    private final List<Message> data;
+    private final boolean hasMore;
+
+    private String nextCursor;
+    private Long nextSince;
+    private String author;
+    private String operator;
+    private Integer days;
+    private String timestamp;
+
+    public MessageListResponse(List<Message> data, boolean hasMore) {
+        this.data = data;
+        this.hasMore = hasMore;
+    }
+
+    public String getStatus() {
+        return "success";
+    }
+
+    public List<Message> getData() {
+        return data;
+    }
+
+    public int getCount() {
+        return data.size();
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public Long getNextSince() {
+        return nextSince;
+    }
+
+    public void setNextSince(Long nextSince) {
+        this.nextSince = nextSince;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public void setOperator(String operator) {
+        this.operator = operator;
+    }
+
+    public Integer getDays() {
+        return days;
+    }
+
+    public void setDays(Integer days) {
+        this.days = days;
+    }
+
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(String timestamp) {
+        this.timestamp = timestamp;
+    }
+}
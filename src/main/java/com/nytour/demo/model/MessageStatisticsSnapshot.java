@@ -0,0 +1,69 @@
+package com.nytour.demo.model;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Immutable point-in-time view of message statistics, published by
+ * MessageStatistics and served as-is by /api/messages/stats.
+ */
+public class MessageStatisticsSnapshot {
+
+    private final long total;
+    private final long active;
+    private final long lastHour;
+    private final long lastDay;
+    private final long lastWeek;
+    private final int authorCount;
+    private final Map<String, Long> topAuthors;
+    private final Date generatedAt;
+
+    public MessageStatisticsSnapshot(long total, long active, long lastHour, long lastDay, long lastWeek,
+                                     int authorCount, Map<String, Long> topAuthors, Date generatedAt) {
+        this.total = total;
+        this.active = active;
+        this.lastHour = lastHour;
+        this.lastDay = lastDay;
+        this.lastWeek = lastWeek;
+        this.authorCount = authorCount;
+        this.topAuthors = topAuthors;
+        this.generatedAt = generatedAt;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getActive() {
+        return active;
+    }
+
+    public long getInactive() {
+        return total - active;
+    }
+
+    public long getLastHour() {
+        return lastHour;
+    }
+
+    public long getLastDay() {
+        return lastDay;
+    }
+
+    public long getLastWeek() {
+        return lastWeek;
+    }
+
+    public int getAuthorCount() {
+        return authorCount;
+    }
+
+    // Largest authors first
+    public Map<String, Long> getTopAuthors() {
+        return topAuthors;
+    }
+
+    public Date getGeneratedAt() {
+        return generatedAt;
+    }
+}
@@ -1,13 +1,19 @@
 package com.nytour.demo.repository;
 
 import com.nytour.demo.model.Message;
+import com.nytour.demo.model.MessageCounts;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Message Repository - Spring Data JPA 1.x (legacy)
@@ -18,11 +24,21 @@ import java.util.List;
  * 3. Query method naming conventions may have updates
  */
 @Repository
-public interface MessageRepository extends JpaRepository<Message, Long> {
+public interface MessageRepository extends JpaRepository<Message, Long>, MessageRepositoryCustom {
 
     // Find by author (standard Spring Data JPA)
     List<Message> findByAuthor(String author);
 
+    // First page of an author's timeline, newest first (backed by idx_messages_author_created)
+    @Query("SELECT m FROM Message m WHERE m.author = :author ORDER BY m.createdDate DESC, m.id DESC")
+    List<Message> findAuthorTimeline(@Param("author") String author, Pageable pageable);
+
+    // Following pages: rows strictly after the (createdDate, id) keyset of the previous page
+    @Query("SELECT m FROM Message m WHERE m.author = :author AND (m.createdDate < :createdDate "
+            + "OR (m.createdDate = :createdDate AND m.id < :id)) ORDER BY m.createdDate DESC, m.id DESC")
+    List<Message> findAuthorTimelineBefore(@Param("author") String author, @Param("createdDate") Date createdDate,
+                                           @Param("id") Long id, Pageable pageable);
+
     // Find active messages (legacy boolean handling)
     List<Message> findByActiveTrue();
 
@@ -33,12 +49,95 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     @Query("SELECT m FROM Message m WHERE m.createdDate > :date AND m.active = true")
     List<Message> findRecentActiveMessages(@Param("date") Date date);
 
+    // Count-only variant, answered from idx_messages_active_created without loading entities
+    @Query("SELECT COUNT(m) FROM Message m WHERE m.createdDate > :date AND m.active = true")
+    long countRecentActiveMessages(@Param("date") Date date);
+
+    // Paginated variant, newest first; the "before" form continues from a (createdDate, id) keyset
+    @Query("SELECT m FROM Message m WHERE m.createdDate > :date AND m.active = true "
+            + "ORDER BY m.createdDate DESC, m.id DESC")
+    List<Message> findRecentActivePage(@Param("date") Date date, Pageable pageable);
+
+    @Query("SELECT m FROM Message m WHERE m.createdDate > :date AND m.active = true AND (m.createdDate < :createdDate "
+            + "OR (m.createdDate = :createdDate AND m.id < :id)) ORDER BY m.createdDate DESC, m.id DESC")
+    List<Message> findRecentActivePageBefore(@Param("date") Date date, @Param("createdDate") Date createdDate,
+                                             @Param("id") Long id, Pageable pageable);
+
     // Count active messages
     Long countByActiveTrue();
 
+    // Change feed page, served by idx_messages_change_seq; upTo excludes changes that may not have committed yet.
+    // Native so soft-deleted rows (hidden by @Where) come back as tombstones.
+    @Query(value = "SELECT * FROM messages WHERE change_seq > :since AND change_seq <= :upTo ORDER BY change_seq",
+            nativeQuery = true)
+    List<Message> findChangesAfter(@Param("since") long since, @Param("upTo") long upTo, Pageable pageable);
+
+    // In-place content update in one statement. The change_seq guard is checked under the row lock, so a
+    // writer whose number is older than the committed version updates nothing instead of moving it back.
+    // deleted_at is spelled out because @Where is not applied to bulk statements.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Message m SET m.content = :content, m.updatedDate = :updatedDate, m.changeSeq = :changeSeq "
+            + "WHERE m.id = :id AND m.deletedAt IS NULL AND m.changeSeq < :changeSeq")
+    int updateContent(@Param("id") Long id, @Param("content") String content,
+                      @Param("updatedDate") Date updatedDate, @Param("changeSeq") long changeSeq);
+
+    // Conditional variant for If-Match: only applies while change_seq is still the version the client saw
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Message m SET m.content = :content, m.updatedDate = :updatedDate, m.changeSeq = :changeSeq "
+            + "WHERE m.id = :id AND m.deletedAt IS NULL AND m.changeSeq = :expectedChangeSeq "
+            + "AND m.changeSeq < :changeSeq")
+    int updateContentIfUnchanged(@Param("id") Long id, @Param("content") String content,
+                                 @Param("updatedDate") Date updatedDate, @Param("changeSeq") long changeSeq,
+                                 @Param("expectedChangeSeq") long expectedChangeSeq);
+
+    // Current version of a live message, null when there is none
+    @Query("SELECT m.changeSeq FROM Message m WHERE m.id = :id")
+    Long findChangeSeqById(@Param("id") Long id);
+
+    // Native so soft-deleted rows count too; they may hold the highest change_seq
+    @Query(value = "SELECT MAX(change_seq) FROM messages", nativeQuery = true)
+    Long findMaxChangeSeq();
+
+    // Native so soft-deleted rows count too: purging them changes this even when MAX(change_seq) does not
+    @Query(value = "SELECT COUNT(*) FROM messages", nativeQuery = true)
+    long countAllRows();
+
+    // Total and active counts in one aggregate statement, no entity hydration
+    @Query("SELECT new com.nytour.demo.model.MessageCounts(COUNT(m), "
+            + "SUM(CASE WHEN m.active = true THEN 1L ELSE 0L END)) FROM Message m")
+    MessageCounts countTotalAndActive();
+
     // Find by content containing (case-insensitive search)
     List<Message> findByContentContainingIgnoreCase(String keyword);
 
-    // Delete by author (Spring Data JPA 1.x style)
-    void deleteByAuthor(String author);
+    // Message count per author, aggregated in the database
+    @Query("SELECT m.author, COUNT(m) FROM Message m GROUP BY m.author")
+    List<Object[]> countGroupedByAuthor();
+
+    // Creation counts per minute since a cutoff, one row per non-empty bucket, to seed the rolling counters.
+    // Native for DATE_TRUNC; deleted_at is spelled out because @Where does not apply.
+    @Query(value = "SELECT DATE_TRUNC('MINUTE', created_date), COUNT(*) FROM messages "
+            + "WHERE deleted_at IS NULL AND created_date > :since GROUP BY DATE_TRUNC('MINUTE', created_date)",
+            nativeQuery = true)
+    List<Object[]> countCreatedPerMinuteSince(@Param("since") Date since);
+
+    // Same per hour. created_date is local time; shifting it back by shiftMinutes (the sub-hour part of the
+    // zone offset) makes the buckets line up with the counters' UTC hours, callers add the shift back.
+    // Bucketed in a derived table since H2 does not match a bound parameter in SELECT against one in GROUP BY.
+    @Query(value = "SELECT bucket, COUNT(*) FROM (SELECT DATE_TRUNC('HOUR', DATEADD('MINUTE', -:shiftMinutes, "
+            + "created_date)) AS bucket FROM messages WHERE deleted_at IS NULL AND created_date > :since) "
+            + "GROUP BY bucket", nativeQuery = true)
+    List<Object[]> countCreatedPerHourSince(@Param("since") Date since, @Param("shiftMinutes") int shiftMinutes);
+
+    // Keyset page on the primary key; Pageable only carries the row limit
+    @Query("SELECT m FROM Message m WHERE m.id > :afterId ORDER BY m.id ASC")
+    List<Message> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Forward-only cursor over the whole table for bulk export (must be consumed inside a transaction)
+    @QueryHints({
+        @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("SELECT m FROM Message m ORDER BY m.id ASC")
+    Stream<Message> streamAllOrderById();
 }
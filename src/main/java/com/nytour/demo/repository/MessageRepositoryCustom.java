@@ -0,0 +1,57 @@
+package com.nytour.demo.repository;
+
+import com.nytour.demo.model.Message;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Plain-JDBC operations that Spring Data JPA cannot express efficiently.
+ * Implemented by {@link MessageRepositoryImpl} and exposed through MessageRepository.
+ */
+public interface MessageRepositoryCustom {
+
+    /**
+     * Reserves a block of {@link Message#ID_ALLOCATION_SIZE} ids from message_seq,
+     * using the same pooled interpretation as Hibernate so the two never overlap.
+     *
+     * @return the highest id of the reserved block
+     */
+    long reserveIdBlock();
+
+    /**
+     * Inserts messages whose ids were assigned up front, as one JDBC batch.
+     */
+    void insertWithAssignedIds(List<Message> messages);
+
+    /**
+     * Marks a message deleted (inactive, deleted_at, new change_seq) in one UPDATE,
+     * without reading it first.
+     *
+     * @return the row as it was before the update (id, author, createdDate, active),
+     *         or null when no live message has that id
+     */
+    Message softDelete(long id, Date deletedAt, long changeSeq);
+
+    /**
+     * Soft-deletes up to {@code limit} of an author's live messages in one set-based
+     * UPDATE, stamping them firstChangeSeq, firstChangeSeq + 1, and so on.
+     *
+     * @return the affected rows as they were before the update (id, author, createdDate, active)
+     */
+    List<Message> softDeleteByAuthor(String author, Date deletedAt, long firstChangeSeq, int limit);
+
+    /**
+     * Physically removes up to {@code limit} of an author's live messages in one DELETE.
+     *
+     * @return the removed rows (id, author, createdDate, active)
+     */
+    List<Message> deleteByAuthor(String author, int limit);
+
+    /**
+     * Physically removes up to {@code limit} messages soft-deleted before the cutoff.
+     *
+     * @return number of rows removed
+     */
+    int purgeSoftDeleted(Date cutoff, int limit);
+}
@@ -0,0 +1,113 @@
+package com.nytour.demo.repository;
+
+import com.nytour.demo.model.Message;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * JDBC fragment of MessageRepository. Runs on the same connection as the
+ * surrounding JPA transaction.
+ */
+public class MessageRepositoryImpl implements MessageRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO messages (id, content, author, created_date, updated_date, is_active, change_seq) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // H2 data change delta table: the UPDATE and the read of the pre-update row are one statement
+    private static final String SOFT_DELETE_SQL =
+            "SELECT id, author, created_date, is_active FROM OLD TABLE ("
+            + "UPDATE messages SET is_active = 'N', deleted_at = ?, change_seq = ? "
+            + "WHERE id = ? AND deleted_at IS NULL)";
+
+    // Bulk variants for one author, a bounded chunk per statement; ROWNUM() gives each row its own change_seq
+    private static final String SOFT_DELETE_BY_AUTHOR_SQL =
+            "SELECT id, author, created_date, is_active FROM OLD TABLE ("
+            + "UPDATE messages SET is_active = 'N', deleted_at = ?, change_seq = ? + ROWNUM() - 1 "
+            + "WHERE author = ? AND deleted_at IS NULL FETCH FIRST ? ROWS ONLY)";
+
+    private static final String DELETE_BY_AUTHOR_SQL =
+            "SELECT id, author, created_date, is_active FROM OLD TABLE ("
+            + "DELETE FROM messages WHERE author = ? AND deleted_at IS NULL FETCH FIRST ? ROWS ONLY)";
+
+    private static final String PURGE_SQL =
+            "DELETE FROM messages WHERE deleted_at < ? FETCH FIRST ? ROWS ONLY";
+
+    private static final RowMapper<Message> DELETED_ROW_MAPPER = new RowMapper<Message>() {
+        @Override
+        public Message mapRow(ResultSet rs, int rowNum) throws SQLException {
+            Message message = new Message();
+            message.setId(rs.getLong("id"));
+            message.setAuthor(rs.getString("author"));
+            message.setCreatedDate(rs.getTimestamp("created_date"));
+            message.setActive("Y".equals(StringUtils.trim(rs.getString("is_active"))));
+            return message;
+        }
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public long reserveIdBlock() {
+        Long blockEnd = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR message_seq", Long.class);
+        return blockEnd;
+    }
+
+    @Override
+    public void insertWithAssignedIds(final List<Message> messages) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Message message = messages.get(i);
+                ps.setLong(1, message.getId());
+                ps.setString(2, message.getContent());
+                ps.setString(3, message.getAuthor());
+                ps.setTimestamp(4, new Timestamp(message.getCreatedDate().getTime()));
+                ps.setTimestamp(5, message.getUpdatedDate() == null ? null
+                        : new Timestamp(message.getUpdatedDate().getTime()));
+                // is_active is mapped with Hibernate's yes_no type
+                ps.setString(6, Boolean.FALSE.equals(message.getActive()) ? "N" : "Y");
+                ps.setLong(7, message.getChangeSeq());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return messages.size();
+            }
+        });
+    }
+
+    @Override
+    public Message softDelete(long id, Date deletedAt, long changeSeq) {
+        List<Message> rows = jdbcTemplate.query(SOFT_DELETE_SQL, DELETED_ROW_MAPPER,
+                new Timestamp(deletedAt.getTime()), changeSeq, id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public List<Message> softDeleteByAuthor(String author, Date deletedAt, long firstChangeSeq, int limit) {
+        return jdbcTemplate.query(SOFT_DELETE_BY_AUTHOR_SQL, DELETED_ROW_MAPPER,
+                new Timestamp(deletedAt.getTime()), firstChangeSeq, author, limit);
+    }
+
+    @Override
+    public List<Message> deleteByAuthor(String author, int limit) {
+        return jdbcTemplate.query(DELETE_BY_AUTHOR_SQL, DELETED_ROW_MAPPER, author, limit);
+    }
+
+    @Override
+    public int purgeSoftDeleted(Date cutoff, int limit) {
+        return jdbcTemplate.update(PURGE_SQL, new Timestamp(cutoff.getTime()), limit);
+    }
+}
@@ -0,0 +1,156 @@
+package com.nytour.demo.repository;
+
+import com.nytour.demo.model.Message;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.function.BiFunction;
+
+/**
+ * Reactive counterpart of MessageRepository over R2DBC. Rows are mapped by hand
+ * because the JPA column mapping (is_active as yes_no, created_date, ...) is not
+ * visible to R2DBC. Flux results are pulled from the driver as the subscriber
+ * requests them. Like the entity's @Where, reads skip soft-deleted rows.
+ */
+@Repository
+public class ReactiveMessageRepository {
+
+    private static final String COLUMNS = "id, content, author, created_date, updated_date, is_active, change_seq";
+
+    private static final BiFunction<Row, RowMetadata, Message> MESSAGE_MAPPER =
+            new BiFunction<Row, RowMetadata, Message>() {
+                public Message apply(Row row, RowMetadata metadata) {
+                    Message message = new Message();
+                    message.setId(row.get("id", Long.class));
+                    message.setContent(row.get("content", String.class));
+                    message.setAuthor(row.get("author", String.class));
+                    message.setCreatedDate(toDate(row.get("created_date", LocalDateTime.class)));
+                    message.setUpdatedDate(toDate(row.get("updated_date", LocalDateTime.class)));
+                    // yes_no column is a padded CHAR, so only the leading character counts
+                    String active = row.get("is_active", String.class);
+                    message.setActive(active != null && active.trim().equals("Y"));
+                    message.setChangeSeq(row.get("change_seq", Long.class));
+                    return message;
+                }
+            };
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    public Mono<Message> findById(Long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM messages WHERE id = :id AND deleted_at IS NULL")
+                .bind("id", id)
+                .map(MESSAGE_MAPPER)
+                .one();
+    }
+
+    public Flux<Message> findAllOrderById() {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM messages WHERE deleted_at IS NULL ORDER BY id")
+                .map(MESSAGE_MAPPER)
+                .all();
+    }
+
+    // Served by idx_messages_author_created
+    public Flux<Message> findByAuthorNewestFirst(String author) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM messages WHERE author = :author AND deleted_at IS NULL "
+                + "ORDER BY created_date DESC, id DESC")
+                .bind("author", author)
+                .map(MESSAGE_MAPPER)
+                .all();
+    }
+
+    public Mono<Long> findChangeSeqById(Long id) {
+        return databaseClient.sql("SELECT change_seq FROM messages WHERE id = :id AND deleted_at IS NULL")
+                .bind("id", id)
+                .map(new BiFunction<Row, RowMetadata, Long>() {
+                    public Long apply(Row row, RowMetadata metadata) {
+                        return row.get(0, Long.class);
+                    }
+                })
+                .one();
+    }
+
+    /**
+     * Reserves a block of ids on message_seq; pooled semantics, so the returned
+     * value v covers ids (v - Message.ID_ALLOCATION_SIZE, v].
+     */
+    public Mono<Long> reserveIdBlock() {
+        return databaseClient.sql("SELECT NEXT VALUE FOR message_seq")
+                .map(new BiFunction<Row, RowMetadata, Long>() {
+                    public Long apply(Row row, RowMetadata metadata) {
+                        return row.get(0, Long.class);
+                    }
+                })
+                .one();
+    }
+
+    public Mono<Message> insertWithAssignedId(final Message message) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("INSERT INTO messages (" + COLUMNS + ") "
+                + "VALUES (:id, :content, :author, :createdDate, :updatedDate, :active, :changeSeq)")
+                .bind("id", message.getId())
+                .bind("content", message.getContent())
+                .bind("author", message.getAuthor())
+                .bind("createdDate", toLocalDateTime(message.getCreatedDate()))
+                // is_active is mapped with Hibernate's yes_no type
+                .bind("active", Boolean.FALSE.equals(message.getActive()) ? "N" : "Y")
+                .bind("changeSeq", message.getChangeSeq());
+        spec = message.getUpdatedDate() == null
+                ? spec.bindNull("updatedDate", LocalDateTime.class)
+                : spec.bind("updatedDate", toLocalDateTime(message.getUpdatedDate()));
+        return spec.fetch().rowsUpdated().thenReturn(message);
+    }
+
+    /**
+     * Guarded like MessageRepository#updateContent: a changeSeq older than the
+     * committed version updates nothing.
+     *
+     * @return number of rows changed (0 when the message does not exist or is newer)
+     */
+    public Mono<Integer> updateContent(Long id, String content, Date updatedDate, long changeSeq) {
+        return databaseClient.sql("UPDATE messages SET content = :content, updated_date = :updatedDate, "
+                + "change_seq = :changeSeq WHERE id = :id AND deleted_at IS NULL AND change_seq < :changeSeq")
+                .bind("content", content)
+                .bind("updatedDate", toLocalDateTime(updatedDate))
+                .bind("changeSeq", changeSeq)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Single-statement soft delete (see MessageRepositoryCustom#softDelete); emits the
+     * pre-update row, or nothing when no live message has that id.
+     */
+    public Mono<Message> softDelete(Long id, Date deletedAt, long changeSeq) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM OLD TABLE (UPDATE messages SET is_active = 'N', "
+                + "deleted_at = :deletedAt, change_seq = :changeSeq WHERE id = :id AND deleted_at IS NULL)")
+                .bind("deletedAt", toLocalDateTime(deletedAt))
+                .bind("changeSeq", changeSeq)
+                .bind("id", id)
+                .map(MESSAGE_MAPPER)
+                .one();
+    }
+
+    public Mono<Integer> deleteById(Long id) {
+        return databaseClient.sql("DELETE FROM messages WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static Date toDate(LocalDateTime value) {
+        return value == null ? null : Timestamp.valueOf(value);
+    }
+
+    private static LocalDateTime toLocalDateTime(Date value) {
+        return new Timestamp(value.getTime()).toLocalDateTime();
+    }
+}
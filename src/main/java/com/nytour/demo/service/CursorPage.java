@@ -0,0 +1,31 @@
+package com.nytour.demo.service;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated result.
+ *
+ * nextCursor is null when the caller has reached the end of the result set.
+ */
+public class CursorPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
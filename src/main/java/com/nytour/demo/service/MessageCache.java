@@ -0,0 +1,103 @@
+package com.nytour.demo.service;
+
+import com.nytour.demo.model.Message;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiFunction;
+
+/**
+ * Message-by-id cache shared by MessageService and ReactiveMessageService.
+ *
+ * A reader that misses takes {@link #generation(Long)} before it reads the row and
+ * stores the result with {@link #putIfCurrent}. Writers call {@link #evict} or
+ * {@link #refresh} after their change is committed, which bumps the id's generation
+ * first; a load that may have read the row before that commit is therefore dropped
+ * instead of overwriting the newer state. Generations are kept per stripe of ids,
+ * so a write to a neighbouring id can only cost an extra miss, never a stale hit.
+ */
+@Component
+public class MessageCache {
+
+    private static final int STRIPES = 1024;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    public Message get(Long id) {
+        Cache cache = cacheManager.getCache(MessageService.MESSAGE_CACHE);
+        return cache == null ? null : cache.get(id, Message.class);
+    }
+
+    /**
+     * To be read before loading a message that missed the cache.
+     */
+    public long generation(Long id) {
+        return generations.get(stripe(id));
+    }
+
+    /**
+     * Caches a freshly loaded message unless its id was evicted or refreshed since
+     * {@code generation} was read, or a newer version got there first.
+     */
+    public void putIfCurrent(final Message loaded, final long generation) {
+        Cache cache = cacheManager.getCache(MessageService.MESSAGE_CACHE);
+        if (!(cache instanceof CaffeineCache)) {
+            return;
+        }
+        final int stripe = stripe(loaded.getId());
+        // The check runs under the entry's lock, so an eviction either sees the stored value or wins the race
+        ((CaffeineCache) cache).getNativeCache().asMap().compute(loaded.getId(),
+                new BiFunction<Object, Object, Object>() {
+                    public Object apply(Object id, Object current) {
+                        if (generations.get(stripe) != generation) {
+                            return current;
+                        }
+                        return isNewer(current, loaded) ? current : loaded;
+                    }
+                });
+    }
+
+    public void evict(Long id) {
+        generations.incrementAndGet(stripe(id));
+        Cache cache = cacheManager.getCache(MessageService.MESSAGE_CACHE);
+        if (cache != null) {
+            cache.evict(id);
+        }
+    }
+
+    /**
+     * Swaps in the updated copy only if the id is still cached and nothing newer got
+     * there first; a concurrent delete's eviction is never undone.
+     */
+    public void refresh(final Message updated) {
+        generations.incrementAndGet(stripe(updated.getId()));
+        Cache cache = cacheManager.getCache(MessageService.MESSAGE_CACHE);
+        if (!(cache instanceof CaffeineCache)) {
+            evict(updated.getId());
+            return;
+        }
+        ((CaffeineCache) cache).getNativeCache().asMap().computeIfPresent(updated.getId(),
+                new BiFunction<Object, Object, Object>() {
+                    public Object apply(Object id, Object current) {
+                        return isNewer(current, updated) ? current : updated;
+                    }
+                });
+    }
+
+    private static boolean isNewer(Object current, Message candidate) {
+        Long currentSeq = current instanceof Message ? ((Message) current).getChangeSeq() : null;
+        return currentSeq != null && candidate.getChangeSeq() != null && currentSeq > candidate.getChangeSeq();
+    }
+
+    private static int stripe(Long id) {
+        long value = id.longValue();
+        return (int) (value ^ (value >>> 32)) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,40 @@
+package com.nytour.demo.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hit/miss/eviction figures for the read-through message cache.
+ */
+@Component
+public class MessageCacheMetrics {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metrics = new LinkedHashMap<String, Object>();
+        Cache cache = cacheManager.getCache(MessageService.MESSAGE_CACHE);
+        if (!(cache instanceof CaffeineCache)) {
+            metrics.put("enabled", false);
+            return metrics;
+        }
+
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = ((CaffeineCache) cache).getNativeCache();
+        CacheStats stats = nativeCache.stats();
+        metrics.put("enabled", true);
+        metrics.put("size", nativeCache.estimatedSize());
+        metrics.put("hits", stats.hitCount());
+        metrics.put("misses", stats.missCount());
+        metrics.put("hitRate", stats.hitRate());
+        metrics.put("evictions", stats.evictionCount());
+        return metrics;
+    }
+}
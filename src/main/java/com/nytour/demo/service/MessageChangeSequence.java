@@ -0,0 +1,105 @@
+package com.nytour.demo.service;
+
+import com.nytour.demo.repository.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.TreeSet;
+
+/**
+ * Hands out the monotonic change_seq stamped on every message write.
+ *
+ * Numbers come from an in-memory counter seeded with MAX(change_seq) at startup,
+ * so stamping a write costs no extra round trip. Because concurrent transactions
+ * can commit out of order, every number stays "in flight" until its write commits
+ * or rolls back, and {@link #getVisibleUpperBound()} stops just below the oldest
+ * one. A change-feed reader therefore never skips past a gap that a slower
+ * transaction could still fill in.
+ */
+@Component
+public class MessageChangeSequence {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageChangeSequence.class);
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    // Both guarded by "this"
+    private long current;
+    private final TreeSet<Long> inFlight = new TreeSet<Long>();
+
+    @EventListener(ContextRefreshedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void seed() {
+        Long max = messageRepository.findMaxChangeSeq();
+        current = max == null ? 0 : max;
+        logger.info("Change sequence seeded at {}", current);
+    }
+
+    /**
+     * Reserves the next number. Inside a transaction it is released on completion;
+     * otherwise the caller must {@link #release(long)} it once the write finished.
+     */
+    public long next() {
+        final long seq = reserve(1);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(seq);
+                }
+            });
+        }
+        return seq;
+    }
+
+    /**
+     * Reserves {@code size} consecutive numbers and returns the first one. Only the
+     * first is tracked as in flight, which already holds back the whole block.
+     */
+    public long nextBlock(int size) {
+        final long first = reserve(size);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(first);
+                }
+            });
+        }
+        return first;
+    }
+
+    public synchronized void release(long seq) {
+        inFlight.remove(seq);
+    }
+
+    /**
+     * Highest change_seq below which every write has committed or rolled back.
+     */
+    public synchronized long getVisibleUpperBound() {
+        return inFlight.isEmpty() ? current : inFlight.first() - 1;
+    }
+
+    /**
+     * True while some reserved number has neither committed nor rolled back.
+     */
+    public synchronized boolean hasWritesInFlight() {
+        return !inFlight.isEmpty();
+    }
+
+    private synchronized long reserve(int size) {
+        long seq = current + 1;
+        current += size;
+        inFlight.add(seq);
+        return seq;
+    }
+}
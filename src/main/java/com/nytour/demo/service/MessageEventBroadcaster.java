@@ -0,0 +1,353 @@
+package com.nytour.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nytour.demo.model.MessageEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fans committed message events out to /api/messages/stream subscribers.
+ *
+ * Each event is serialized once and offered to every subscriber's bounded buffer,
+ * so publishing never blocks on a client. A small dispatcher pool drains buffers
+ * into the SSE connections, one drain task per subscriber at a time. When a slow
+ * subscriber's buffer is full it is either disconnected (default; the client
+ * reconnects and re-reads what it missed) or loses its oldest event
+ * (messages.stream.overflow=drop-oldest). A client that stops reading altogether
+ * is disconnected once a single send blocks longer than messages.stream.send-timeout-ms.
+ *
+ * Emitters are only ever completed by the dispatcher or the stall watchdog: a
+ * publisher that disconnects a subscriber just marks it closed, because completing
+ * an emitter waits for any send in progress on it, and the publisher is a request
+ * thread holding a database connection.
+ */
+@Component
+public class MessageEventBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageEventBroadcaster.class);
+
+    enum OverflowPolicy {
+        DISCONNECT, DROP_OLDEST;
+
+        static OverflowPolicy parse(String value) {
+            for (OverflowPolicy policy : values()) {
+                if (policy.name().replace('_', '-').equalsIgnoreCase(value)) {
+                    return policy;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported messages.stream.overflow: " + value);
+        }
+    }
+
+    // Keeps idle connections (and proxies in between) from timing out
+    private static final OutgoingEvent HEARTBEAT = new OutgoingEvent(0, null, null);
+
+    @Value("${messages.stream.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${messages.stream.overflow:disconnect}")
+    private String overflow;
+
+    @Value("${messages.stream.max-subscribers:1000}")
+    private int maxSubscribers;
+
+    @Value("${messages.stream.dispatch-threads:2}")
+    private int dispatchThreads;
+
+    @Value("${messages.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${messages.stream.send-timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Disconnected but not yet completed, still watched for a stalled send
+    private final Set<Subscriber> closing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong eventIds = new AtomicLong();
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong disconnectedCount = new AtomicLong();
+    private final AtomicLong timedOutCount = new AtomicLong();
+
+    private OverflowPolicy overflowPolicy;
+    private ExecutorService dispatcher;
+
+    @PostConstruct
+    public void start() {
+        overflowPolicy = OverflowPolicy.parse(overflow);
+        final AtomicInteger threadNumber = new AtomicInteger();
+        dispatcher = Executors.newFixedThreadPool(dispatchThreads, new ThreadFactory() {
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "message-stream-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+        for (Subscriber subscriber : closing) {
+            subscriber.emitter.complete();
+        }
+        closing.clear();
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * Registers a new SSE subscriber, or returns null when the subscriber limit is reached.
+     */
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        final Subscriber subscriber = new Subscriber(emitter, bufferSize);
+        Runnable unsubscribe = new Runnable() {
+            public void run() {
+                subscribers.remove(subscriber);
+            }
+        };
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public void publish(MessageEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize {} event for message {}", event.getType(), event.getMessageId(), e);
+            return;
+        }
+
+        OutgoingEvent outgoing = new OutgoingEvent(eventIds.incrementAndGet(), event.getType().eventName(), json);
+        publishedCount.incrementAndGet();
+        for (Subscriber subscriber : subscribers) {
+            offer(subscriber, outgoing);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${messages.stream.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            // A full buffer already has something to send, so skipping is harmless
+            if (subscriber.buffer.offer(HEARTBEAT)) {
+                scheduleDrain(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Disconnects subscribers whose current send has been blocked longer than
+     * messages.stream.send-timeout-ms, including ones already disconnected for
+     * overflowing whose last send never returned. Completing the emitter alone does
+     * not release a write blocked on a full socket, so the dispatch thread stuck in
+     * it is interrupted as well; otherwise a few stalled clients would hold every
+     * dispatch thread and freeze delivery to all other subscribers.
+     */
+    @Scheduled(fixedDelayString = "${messages.stream.send-check-ms:1000}")
+    public void disconnectStalledSubscribers() {
+        long now = System.nanoTime();
+        long limit = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (Subscriber subscriber : subscribers) {
+            if (isStalled(subscriber, now, limit) && subscribers.remove(subscriber)) {
+                abortSend(subscriber);
+            }
+        }
+        for (Subscriber subscriber : closing) {
+            if (isStalled(subscriber, now, limit) && closing.remove(subscriber)) {
+                abortSend(subscriber);
+            }
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metrics = new LinkedHashMap<String, Object>();
+        metrics.put("subscribers", subscribers.size());
+        metrics.put("published", publishedCount.get());
+        metrics.put("dropped", droppedCount.get());
+        metrics.put("disconnected", disconnectedCount.get());
+        metrics.put("timedOut", timedOutCount.get());
+        return metrics;
+    }
+
+    private void offer(Subscriber subscriber, OutgoingEvent outgoing) {
+        if (!subscriber.buffer.offer(outgoing)) {
+            droppedCount.incrementAndGet();
+            if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                disconnect(subscriber);
+                return;
+            }
+            subscriber.buffer.poll();
+            subscriber.buffer.offer(outgoing);
+        }
+        scheduleDrain(subscriber);
+    }
+
+    // Runs on the publishing thread, so the emitter is left for drain to complete
+    private void disconnect(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            disconnectedCount.incrementAndGet();
+            closing.add(subscriber);
+            subscriber.closed = true;
+            subscriber.buffer.clear();
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private static boolean isStalled(Subscriber subscriber, long now, long limit) {
+        long started = subscriber.sendStartedAt;
+        return started != 0 && now - started > limit;
+    }
+
+    private void abortSend(Subscriber subscriber) {
+        timedOutCount.incrementAndGet();
+        subscriber.closed = true;
+        subscriber.buffer.clear();
+        // Claiming the sender first ensures only the stalled send is interrupted
+        Thread sender = subscriber.sender.getAndSet(null);
+        if (sender != null) {
+            sender.interrupt();
+            subscriber.interruptSent = true;
+        }
+        subscriber.emitter.completeWithError(
+                new IOException("Send blocked for more than " + sendTimeoutMs + " ms"));
+    }
+
+    private void scheduleDrain(final Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            dispatcher.execute(new Runnable() {
+                public void run() {
+                    drain(subscriber);
+                }
+            });
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            OutgoingEvent outgoing;
+            while (!subscriber.closed && (outgoing = subscriber.buffer.poll()) != null) {
+                if (!send(subscriber, outgoing)) {
+                    subscribers.remove(subscriber);
+                    closing.remove(subscriber);
+                    subscriber.buffer.clear();
+                    subscriber.draining.set(false);
+                    return;
+                }
+            }
+            if (subscriber.closed) {
+                // Left marked as draining, so nothing is scheduled for it again
+                if (closing.remove(subscriber)) {
+                    subscriber.emitter.complete();
+                }
+                return;
+            }
+            subscriber.draining.set(false);
+            // Re-check: an event offered, or a disconnect, after the last poll but before the flag was cleared
+        } while ((subscriber.closed || !subscriber.buffer.isEmpty()) && subscriber.draining.compareAndSet(false, true));
+    }
+
+    private boolean send(Subscriber subscriber, OutgoingEvent outgoing) {
+        Thread current = Thread.currentThread();
+        subscriber.sender.set(current);
+        subscriber.sendStartedAt = System.nanoTime() | 1;
+        try {
+            if (outgoing == HEARTBEAT) {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else {
+                // Pre-serialized JSON goes out as-is through the String converter
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(Long.toString(outgoing.id))
+                        .name(outgoing.name)
+                        .data(outgoing.json));
+            }
+            return true;
+        } catch (IOException e) {
+            // Client went away; the container completes the emitter
+            return false;
+        } catch (IllegalStateException e) {
+            // Emitter already completed (timeout or disconnect)
+            return false;
+        } finally {
+            subscriber.sendStartedAt = 0;
+            if (!subscriber.sender.compareAndSet(current, null)) {
+                // Claimed by disconnectStalledSubscribers: wait for its interrupt and clear it,
+                // so the pooled thread does not carry it into the next subscriber's send
+                while (!subscriber.interruptSent) {
+                    Thread.yield();
+                }
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<OutgoingEvent> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        // Set while a send is in progress (0 / null otherwise), for the stalled-send check
+        private volatile long sendStartedAt;
+        private final AtomicReference<Thread> sender = new AtomicReference<Thread>();
+        private volatile boolean interruptSent;
+
+        Subscriber(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<OutgoingEvent>(bufferSize);
+        }
+    }
+
+    private static final class OutgoingEvent {
+
+        private final long id;
+        private final String name;
+        private final String json;
+
+        OutgoingEvent(long id, String name, String json) {
+            this.id = id;
+            this.name = name;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.nytour.demo.service;
+
+/**
+ * Thrown when no live (not soft-deleted) message has the requested id
+ * (mapped to HTTP 404).
+ */
+public class MessageNotFoundException extends RuntimeException {
+
+    public MessageNotFoundException(Long id) {
+        super("Message not found with id: " + id);
+    }
+}
@@ -0,0 +1,426 @@
+package com.nytour.demo.service;
+
+import com.nytour.demo.model.Message;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over Message.content.
+ *
+ * Content is split on non-alphanumeric characters and lowercased; each term maps
+ * to a posting list of message id -> term frequency. Queries are ranked by
+ * TF-IDF (normalized by document length) so lookup cost follows the size of the
+ * matching posting lists rather than the size of the table. A trailing '*' on a
+ * query term matches every indexed term with that prefix.
+ *
+ * A full rebuild fills a separate segment while searches keep using the current
+ * one; writes made meanwhile go to both, and the rebuilt segment is swapped in
+ * when complete. Until the first build has finished, {@link #isReady()} is false.
+ * The segment can also be written out and read back in place of a rebuild (see
+ * MessageStateSnapshotStore).
+ */
+@Component
+public class MessageSearchIndex {
+
+    public enum Operator {
+        AND, OR;
+
+        public static Operator parse(String value) {
+            for (Operator operator : values()) {
+                if (operator.name().equalsIgnoreCase(StringUtils.trim(value))) {
+                    return operator;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported operator: " + value);
+        }
+    }
+
+    // Marks an id deleted while a rebuild is running; ids are never reused
+    private static final long REMOVED = Long.MAX_VALUE;
+
+    // Both guarded by lock
+    private Segment live = new Segment();
+    private Segment building;
+    // Written by live writes during a rebuild (id -> change_seq, or REMOVED), so the
+    // rebuild does not overwrite them with the older rows it streamed
+    private Map<Long, Long> touchedDuringBuild;
+
+    private volatile boolean ready;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void index(Message message) {
+        if (message == null || message.getId() == null) {
+            return;
+        }
+        Document document = Document.of(message);
+
+        lock.writeLock().lock();
+        try {
+            live.put(message.getId(), document);
+            if (building != null) {
+                Long seq = message.getChangeSeq() == null ? Long.valueOf(0L) : message.getChangeSeq();
+                Long previous = touchedDuringBuild.get(message.getId());
+                if (previous == null || previous < seq) {
+                    touchedDuringBuild.put(message.getId(), seq);
+                    building.put(message.getId(), document);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            live.remove(id);
+            if (building != null) {
+                touchedDuringBuild.put(id, REMOVED);
+                building.remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Starts a full rebuild into an empty segment; searches keep using the current one.
+     */
+    public void beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            building = new Segment();
+            touchedDuringBuild = new HashMap<Long, Long>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a row read by the rebuild, unless a live write already indexed a newer
+     * version of it or removed it.
+     */
+    public void rebuildIndex(Message message) {
+        if (message == null || message.getId() == null) {
+            return;
+        }
+        addRebuilt(message.getId(), Document.of(message), message.getChangeSeq());
+    }
+
+    /**
+     * Fills the rebuild with a segment written by {@link #writeTo}. The snapshot is
+     * older than any live write made meanwhile, so those ids keep their live version.
+     */
+    public void rebuildFrom(DataInput in) throws IOException {
+        String[] terms = new String[in.readInt()];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = in.readUTF();
+        }
+        int documents = in.readInt();
+        for (int i = 0; i < documents; i++) {
+            long id = in.readLong();
+            int length = in.readInt();
+            int termCount = in.readInt();
+            Map<String, Integer> frequencies = new HashMap<String, Integer>(termCount * 2);
+            for (int j = 0; j < termCount; j++) {
+                frequencies.put(terms[in.readInt()], in.readInt());
+            }
+            addRebuilt(id, new Document(frequencies, length), null);
+        }
+    }
+
+    /**
+     * Writes the current segment for {@link #rebuildFrom}: a term dictionary, then
+     * each document's id, length and term frequencies.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        lock.readLock().lock();
+        try {
+            Segment segment = live;
+            Map<String, Integer> termIds = new HashMap<String, Integer>(segment.postings.size() * 2);
+            out.writeInt(segment.postings.size());
+            for (String term : segment.postings.keySet()) {
+                termIds.put(term, termIds.size());
+                out.writeUTF(term);
+            }
+            out.writeInt(segment.documentLengths.size());
+            for (Map.Entry<Long, Integer> document : segment.documentLengths.entrySet()) {
+                Long id = document.getKey();
+                Set<String> terms = segment.documentTerms.get(id);
+                out.writeLong(id);
+                out.writeInt(document.getValue());
+                out.writeInt(terms.size());
+                for (String term : terms) {
+                    out.writeInt(termIds.get(term));
+                    out.writeInt(segment.postings.get(term).get(id));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A null changeSeq loses to any live write made during the rebuild
+    private void addRebuilt(Long id, Document document, Long changeSeq) {
+        lock.writeLock().lock();
+        try {
+            if (building == null) {
+                throw new IllegalStateException("No rebuild in progress");
+            }
+            Long touched = touchedDuringBuild.get(id);
+            if (touched == null || (changeSeq != null && touched < changeSeq)) {
+                building.put(id, document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Swaps the rebuilt segment in; from now on searches see the complete index.
+     */
+    public void finishRebuild() {
+        lock.writeLock().lock();
+        try {
+            if (building == null) {
+                throw new IllegalStateException("No rebuild in progress");
+            }
+            live = building;
+            building = null;
+            touchedDuringBuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops a failed rebuild; the current segment stays in use.
+     */
+    public void abortRebuild() {
+        lock.writeLock().lock();
+        try {
+            building = null;
+            touchedDuringBuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * False until the first full build has been swapped in; before that, results may be incomplete.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.documentLengths.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns matching message ids, best match first (ties broken by id).
+     */
+    public List<Long> search(String query, Operator operator) {
+        List<String> terms = new ArrayList<String>(new LinkedHashSet<String>(tokenizeQuery(query)));
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            Segment segment = live;
+            int documentCount = segment.documentLengths.size();
+            Map<Long, Double> scores = null;
+
+            for (String term : terms) {
+                Map<Long, Double> termScores = scoreTerm(segment, term, documentCount);
+                if (scores == null) {
+                    scores = termScores;
+                } else if (operator == Operator.AND) {
+                    scores.keySet().retainAll(termScores.keySet());
+                    for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + termScores.get(entry.getKey()));
+                    }
+                } else {
+                    for (Map.Entry<Long, Double> entry : termScores.entrySet()) {
+                        Double current = scores.get(entry.getKey());
+                        scores.put(entry.getKey(), current == null ? entry.getValue() : current + entry.getValue());
+                    }
+                }
+                if (operator == Operator.AND && scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+
+            return rank(scores);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the read lock
+    private Map<Long, Double> scoreTerm(Segment segment, String term, int documentCount) {
+        Map<Long, Double> scores = new HashMap<Long, Double>();
+        if (term.endsWith("*")) {
+            String prefix = term.substring(0, term.length() - 1);
+            SortedMap<String, Map<Long, Integer>> matches =
+                    segment.postings.subMap(prefix, prefix + Character.MAX_VALUE);
+            for (Map<Long, Integer> postingList : matches.values()) {
+                accumulate(segment, scores, postingList, documentCount);
+            }
+        } else {
+            Map<Long, Integer> postingList = segment.postings.get(term);
+            if (postingList != null) {
+                accumulate(segment, scores, postingList, documentCount);
+            }
+        }
+        return scores;
+    }
+
+    private void accumulate(Segment segment, Map<Long, Double> scores, Map<Long, Integer> postingList,
+                            int documentCount) {
+        double idf = Math.log(1.0 + (double) documentCount / postingList.size());
+        for (Map.Entry<Long, Integer> posting : postingList.entrySet()) {
+            Integer length = segment.documentLengths.get(posting.getKey());
+            double score = posting.getValue() * idf / Math.sqrt(length == null || length == 0 ? 1 : length);
+            Double current = scores.get(posting.getKey());
+            scores.put(posting.getKey(), current == null ? score : current + score);
+        }
+    }
+
+    private List<Long> rank(final Map<Long, Double> scores) {
+        List<Long> ids = new ArrayList<Long>(scores.keySet());
+        Collections.sort(ids, new Comparator<Long>() {
+            @Override
+            public int compare(Long a, Long b) {
+                int byScore = Double.compare(scores.get(b), scores.get(a));
+                return byScore != 0 ? byScore : a.compareTo(b);
+            }
+        });
+        return ids;
+    }
+
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<String>();
+        if (StringUtils.isEmpty(text)) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Term frequencies and length of one message, computed outside the lock
+    private static final class Document {
+
+        private final Map<String, Integer> frequencies;
+        private final int length;
+
+        private Document(Map<String, Integer> frequencies, int length) {
+            this.frequencies = frequencies;
+            this.length = length;
+        }
+
+        static Document of(Message message) {
+            List<String> tokens = tokenize(message.getContent());
+            Map<String, Integer> frequencies = new HashMap<String, Integer>();
+            for (String token : tokens) {
+                Integer current = frequencies.get(token);
+                frequencies.put(token, current == null ? 1 : current + 1);
+            }
+            return new Document(frequencies, tokens.size());
+        }
+    }
+
+    // One complete set of index structures; callers hold the write lock to modify it
+    private static final class Segment {
+
+        // Sorted so prefix queries can use a sub-map instead of scanning every term
+        private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<String, Map<Long, Integer>>();
+
+        // Forward index (id -> distinct terms) so a document can be removed without re-tokenizing
+        private final Map<Long, Set<String>> documentTerms = new HashMap<Long, Set<String>>();
+        private final Map<Long, Integer> documentLengths = new HashMap<Long, Integer>();
+
+        void put(Long id, Document document) {
+            remove(id);
+            for (Map.Entry<String, Integer> entry : document.frequencies.entrySet()) {
+                Map<Long, Integer> postingList = postings.get(entry.getKey());
+                if (postingList == null) {
+                    postingList = new HashMap<Long, Integer>();
+                    postings.put(entry.getKey(), postingList);
+                }
+                postingList.put(id, entry.getValue());
+            }
+            documentTerms.put(id, document.frequencies.keySet());
+            documentLengths.put(id, document.length);
+        }
+
+        void remove(Long id) {
+            Set<String> terms = documentTerms.remove(id);
+            documentLengths.remove(id);
+            if (terms == null) {
+                return;
+            }
+            for (String term : terms) {
+                Map<Long, Integer> postingList = postings.get(term);
+                if (postingList != null) {
+                    postingList.remove(id);
+                    if (postingList.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+    }
+
+    // Same folding as tokenize, but keeps a trailing '*' as a prefix marker
+    private static List<String> tokenizeQuery(String query) {
+        List<String> terms = new ArrayList<String>();
+        if (StringUtils.isBlank(query)) {
+            return terms;
+        }
+        for (String raw : StringUtils.split(query)) {
+            boolean prefix = raw.endsWith("*");
+            List<String> parts = tokenize(raw);
+            for (int i = 0; i < parts.size(); i++) {
+                boolean last = i == parts.size() - 1;
+                terms.add(prefix && last ? parts.get(i) + "*" : parts.get(i));
+            }
+        }
+        return terms;
+    }
+}
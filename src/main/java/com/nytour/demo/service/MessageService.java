@@ -1,15 +1,47 @@
 package com.nytour.demo.service;
 
 import com.nytour.demo.model.Message;
+import com.nytour.demo.model.MessageCounts;
+import com.nytour.demo.model.MessageEvent;
+import com.nytour.demo.model.MessageStatisticsSnapshot;
 import com.nytour.demo.repository.MessageRepository;
 import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Message Service - Legacy Spring 4.x patterns
@@ -24,18 +56,153 @@ import java.util.List;
 @Transactional
 public class MessageService {
 
+    private static final Logger logger = LoggerFactory.getLogger(MessageService.class);
+
+    // Page size bounds for keyset-paginated reads
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // Read-through cache for getMessageById (sized in application.properties)
+    public static final String MESSAGE_CACHE = "messages";
+
+    // Upper bound on items accepted by a single batch create
+    public static final int MAX_BATCH_SIZE = 5000;
+
+    // Creation-time buckets cover this many days; longer windows are counted in the database
+    public static final int ROLLING_WINDOW_DAYS = 30;
+
+    // Cursor keys for the keyset-paginated reads
+    private static final Function<Message, String> BY_ID = new Function<Message, String>() {
+        public String apply(Message last) {
+            return PageCursor.encode(last.getId());
+        }
+    };
+
+    private static final Function<Message, String> BY_CREATED_DATE_AND_ID = new Function<Message, String>() {
+        public String apply(Message last) {
+            return PageCursor.encode(toEpochMicros(last.getCreatedDate()), last.getId());
+        }
+    };
+
+    // The change feed continues from a plain sequence number (?since=), not an opaque cursor
+    private static final Function<Message, String> BY_CHANGE_SEQ = new Function<Message, String>() {
+        public String apply(Message last) {
+            return Long.toString(last.getChangeSeq());
+        }
+    };
+
     // Field injection (legacy pattern, constructor injection preferred in modern Spring)
     @Autowired
     private MessageRepository messageRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MessageSearchIndex searchIndex;
+
+    @Autowired
+    private MessageCache messageCache;
+
+    @Autowired
+    private MessageStatistics statistics;
+
+    @Autowired
+    private MessageEventBroadcaster eventBroadcaster;
+
+    @Autowired
+    private MessageChangeSequence changeSequence;
+
+    @Autowired
+    private MessageStateSnapshotStore stateSnapshotStore;
+
+    @Value("${messages.soft-delete.enabled:true}")
+    private boolean softDelete;
+
+    // Rows per transaction for deleteMessagesByAuthor
+    @Value("${messages.bulk-delete.chunk-size:10000}")
+    private int bulkDeleteChunkSize;
+
+    // Flush/clear interval for batch creates, kept in step with the JDBC batch size
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize;
+
     public Message createMessage(String content, String author) {
         // Using deprecated commons-lang StringUtils (version 2.x)
         if (StringUtils.isEmpty(content) || StringUtils.isEmpty(author)) {
             throw new IllegalArgumentException("Content and author cannot be empty");
         }
 
-        Message message = new Message(content, author);
-        return messageRepository.save(message);
+        Message created = new Message(content, author);
+        created.setChangeSeq(changeSequence.next());
+        final Message message = messageRepository.save(created);
+        afterCommit(new Runnable() {
+            public void run() {
+                searchIndex.index(message);
+                statistics.onCreated(message);
+                eventBroadcaster.publish(new MessageEvent(MessageEvent.Type.CREATED, message.getId(), message));
+            }
+        });
+        return message;
+    }
+
+    /**
+     * Persists many messages in one transaction. Inserts go out as JDBC batches,
+     * and the persistence context is flushed and cleared every batch so it stays small.
+     * Items are expected to be validated already; the controller rejects bad ones
+     * individually so they cannot fail the whole batch.
+     */
+    public List<Message> createMessages(List<Message> messages) {
+        if (messages.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch cannot exceed " + MAX_BATCH_SIZE + " messages");
+        }
+
+        for (int i = 0; i < messages.size(); i++) {
+            messages.get(i).setChangeSeq(changeSequence.next());
+            entityManager.persist(messages.get(i));
+            if ((i + 1) % jdbcBatchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+
+        final List<Message> created = messages;
+        afterCommit(new Runnable() {
+            public void run() {
+                for (Message message : created) {
+                    searchIndex.index(message);
+                    statistics.onCreated(message);
+                    eventBroadcaster.publish(new MessageEvent(MessageEvent.Type.CREATED, message.getId(), message));
+                }
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Group-commits messages drained from the write-behind queue. Their ids were
+     * reserved up front, so they are inserted directly as one JDBC batch.
+     */
+    public void persistQueuedMessages(List<Message> messages) {
+        // Stamped at flush rather than enqueue time, so queued messages do not hold back the change feed
+        for (Message message : messages) {
+            message.setChangeSeq(changeSequence.next());
+        }
+        messageRepository.insertWithAssignedIds(messages);
+
+        final List<Message> persisted = new ArrayList<Message>(messages);
+        afterCommit(new Runnable() {
+            public void run() {
+                for (Message message : persisted) {
+                    searchIndex.index(message);
+                    statistics.onCreated(message);
+                    eventBroadcaster.publish(new MessageEvent(MessageEvent.Type.CREATED, message.getId(), message));
+                }
+            }
+        });
     }
 
     @Transactional(readOnly = true)
@@ -43,45 +210,303 @@ public class MessageService {
         return messageRepository.findAll();
     }
 
+    /**
+     * Messages created or changed after change sequence {@code since}, in change
+     * order. Only changes below the visible upper bound are returned, so a client
+     * that continues from the last changeSeq it saw never misses a late commit.
+     */
     @Transactional(readOnly = true)
+    public CursorPage<Message> getChangesSince(long since, Integer limit) {
+        if (since < 0) {
+            throw new IllegalArgumentException("Since cannot be negative");
+        }
+        int pageSize = resolvePageSize(limit);
+        long upTo = changeSequence.getVisibleUpperBound();
+
+        List<Message> rows = messageRepository.findChangesAfter(since, upTo, PageRequest.of(0, pageSize + 1));
+        return toPage(rows, pageSize, BY_CHANGE_SEQ);
+    }
+
+    /**
+     * Keyset page ordered by id. A null or blank cursor means the first page.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Message> getMessagePage(String cursor, Integer limit) {
+        long afterId = StringUtils.isBlank(cursor) ? 0L : PageCursor.decode(cursor, 1)[0];
+        int pageSize = resolvePageSize(limit);
+
+        // Fetch one extra row to know whether another page exists
+        List<Message> rows = messageRepository.findPageAfterId(afterId, PageRequest.of(0, pageSize + 1));
+        return toPage(rows, pageSize, BY_ID);
+    }
+
+    /**
+     * Walks the whole table in id order, handing each row to the consumer and
+     * detaching it right after so the persistence context never grows.
+     *
+     * @return number of rows visited
+     */
+    @Transactional(readOnly = true)
+    public long exportAllMessages(Consumer<Message> consumer) {
+        long count = 0;
+        Stream<Message> stream = messageRepository.streamAllOrderById();
+        try {
+            Iterator<Message> it = stream.iterator();
+            while (it.hasNext()) {
+                Message message = it.next();
+                consumer.accept(message);
+                entityManager.detach(message);
+                count++;
+            }
+        } finally {
+            stream.close();
+        }
+        return count;
+    }
+
+    /**
+     * Cached by id; update and delete evict or refresh the entry once their transaction
+     * commits. A hit opens no transaction, and a miss that raced with such a write is
+     * returned but not cached (see {@link MessageCache}).
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Message getMessageById(Long id) {
+        Message cached = messageCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = messageCache.generation(id);
         // Legacy pattern: direct get without Optional handling
         Message message = messageRepository.findById(id).orElse(null); // Using findById for Spring Boot 2.x
         if (message == null) {
             throw new RuntimeException("Message not found with id: " + id);
         }
+        messageCache.putIfCurrent(message, generation);
         return message;
     }
 
     public Message updateMessage(Long id, String content) {
-        Message message = getMessageById(id);
-        message.setContent(content);
-        
-        // Using deprecated Date and Calendar APIs
-        Calendar calendar = Calendar.getInstance();
-        message.setUpdatedDate(calendar.getTime());
-        
-        return messageRepository.save(message);
+        return updateMessage(id, content, null);
+    }
+
+    /**
+     * Rewrites content, updated_date and change_seq in a single UPDATE without loading
+     * the entity; no matching row means 404. change_seq doubles as the message version
+     * (ETag): when expectedChangeSeq is given the update only applies if it is still
+     * current. The returned message is assembled from the cached copy when there is
+     * one (author and creation date never change), so a hot update is one statement.
+     *
+     * The number is taken before the row lock, so a concurrent PUT holding a later one
+     * can commit first. The UPDATE then matches nothing rather than lowering the
+     * version, and is retried with a fresh number, which is above the committed one.
+     */
+    public Message updateMessage(Long id, String content, Long expectedChangeSeq) {
+        if (StringUtils.isEmpty(content)) {
+            throw new IllegalArgumentException("Content cannot be empty");
+        }
+
+        Date now = new Date();
+        long changeSeq = changeSequence.next();
+        while ((expectedChangeSeq == null
+                ? messageRepository.updateContent(id, content, now, changeSeq)
+                : messageRepository.updateContentIfUnchanged(id, content, now, changeSeq, expectedChangeSeq)) == 0) {
+            Long current = messageRepository.findChangeSeqById(id);
+            if (current == null) {
+                throw new MessageNotFoundException(id);
+            }
+            if (expectedChangeSeq != null && !expectedChangeSeq.equals(current)) {
+                throw new MessageVersionConflictException("Message " + id + " has changed since version "
+                        + expectedChangeSeq);
+            }
+            // Only a newer committed version makes the guard fail, and every retry means another write won
+            changeSeq = changeSequence.next();
+        }
+
+        Message cached = messageCache.get(id);
+        final Message saved;
+        if (cached != null) {
+            saved = withUpdatedContent(cached, content, now, changeSeq);
+        } else {
+            saved = messageRepository.findById(id).orElse(null);
+            if (saved == null) {
+                throw new MessageNotFoundException(id);
+            }
+        }
+
+        afterCommit(new Runnable() {
+            public void run() {
+                messageCache.refresh(saved);
+                searchIndex.index(saved);
+                eventBroadcaster.publish(new MessageEvent(MessageEvent.Type.UPDATED, saved.getId(), saved));
+            }
+        });
+        return saved;
+    }
+
+    /**
+     * Soft delete (default): one UPDATE marks the row inactive and deleted, with no
+     * prior SELECT; MessageCompactionTask purges it later. With
+     * messages.soft-delete.enabled=false the row is loaded and removed immediately.
+     */
+    public void deleteMessage(final Long id) {
+        final Message message;
+        if (softDelete) {
+            message = messageRepository.softDelete(id, new Date(), changeSequence.next());
+            if (message == null) {
+                throw new MessageNotFoundException(id);
+            }
+        } else {
+            message = messageRepository.findById(id).orElse(null);
+            if (message == null) {
+                throw new MessageNotFoundException(id);
+            }
+            messageRepository.delete(message);
+        }
+        afterCommit(new Runnable() {
+            public void run() {
+                messageCache.evict(id);
+                searchIndex.remove(id);
+                statistics.onDeleted(message);
+                eventBroadcaster.publish(new MessageEvent(MessageEvent.Type.DELETED, id, null));
+            }
+        });
+    }
+
+    /**
+     * Deletes all of an author's messages as a series of set-based deletes of at most
+     * messages.bulk-delete.chunk-size rows, each committed in its own transaction so a
+     * large author never holds locks for long. If a chunk fails, the chunks committed
+     * before it stay deleted and repeating the call finishes the job.
+     *
+     * @return number of messages deleted
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long deleteMessagesByAuthor(final String author) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long deleted = 0;
+        int chunks = 0;
+        int removed;
+        do {
+            try {
+                removed = transactionTemplate.execute(new TransactionCallback<Integer>() {
+                    public Integer doInTransaction(TransactionStatus status) {
+                        return deleteMessagesByAuthorBatch(author, bulkDeleteChunkSize);
+                    }
+                });
+            } catch (RuntimeException e) {
+                logger.error("Deleting messages of {} failed after {} rows", author, deleted);
+                throw e;
+            }
+            deleted += removed;
+            chunks++;
+        } while (removed == bulkDeleteChunkSize);
+
+        logger.info("Deleted {} messages of {} in {} chunks", deleted, author, chunks);
+        return deleted;
     }
 
-    public void deleteMessage(Long id) {
-        Message message = getMessageById(id);
-        messageRepository.delete(message);
+    /**
+     * Deletes up to batchSize of an author's messages with one set-based statement.
+     * Soft or hard like {@link #deleteMessage}.
+     *
+     * @return number of messages deleted
+     */
+    public int deleteMessagesByAuthorBatch(String author, int batchSize) {
+        if (StringUtils.isEmpty(author)) {
+            throw new IllegalArgumentException("Author cannot be empty");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+
+        final List<Message> deleted = softDelete
+                ? messageRepository.softDeleteByAuthor(author, new Date(), changeSequence.nextBlock(batchSize), batchSize)
+                : messageRepository.deleteByAuthor(author, batchSize);
+        if (deleted.isEmpty()) {
+            return 0;
+        }
+        afterCommit(new Runnable() {
+            public void run() {
+                for (Message message : deleted) {
+                    messageCache.evict(message.getId());
+                    searchIndex.remove(message.getId());
+                    statistics.onDeleted(message);
+                    eventBroadcaster.publish(new MessageEvent(MessageEvent.Type.DELETED, message.getId(), null));
+                }
+            }
+        });
+        return deleted.size();
     }
 
+    /**
+     * Purges one bounded batch of messages soft-deleted before the cutoff, in its own
+     * transaction so locks are held briefly.
+     *
+     * @return number of rows removed
+     */
+    public int purgeSoftDeletedBatch(Date cutoff, int batchSize) {
+        return messageRepository.purgeSoftDeleted(cutoff, batchSize);
+    }
+
+    /**
+     * An author's messages newest first, one keyset page at a time. The cursor
+     * carries the (createdDate, id) of the last row, so each page is an index range
+     * read no matter how many messages the author has.
+     */
     @Transactional(readOnly = true)
-    public List<Message> getMessagesByAuthor(String author) {
-        return messageRepository.findByAuthor(author);
+    public CursorPage<Message> getMessagesByAuthor(String author, String cursor, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+
+        List<Message> rows;
+        if (StringUtils.isBlank(cursor)) {
+            rows = messageRepository.findAuthorTimeline(author, pageRequest);
+        } else {
+            long[] keyset = PageCursor.decode(cursor, 2);
+            rows = messageRepository.findAuthorTimelineBefore(author, fromEpochMicros(keyset[0]), keyset[1], pageRequest);
+        }
+        return toPage(rows, pageSize, BY_CREATED_DATE_AND_ID);
     }
 
+    /**
+     * Active messages created in the last daysAgo days, newest first, one keyset page at a time.
+     */
     @Transactional(readOnly = true)
-    public List<Message> getRecentMessages(int daysAgo) {
-        // Using deprecated Calendar API to calculate date
-        Calendar calendar = Calendar.getInstance();
-        calendar.add(Calendar.DAY_OF_MONTH, -daysAgo);
-        Date cutoffDate = calendar.getTime();
-        
-        return messageRepository.findRecentActiveMessages(cutoffDate);
+    public CursorPage<Message> getRecentMessages(int daysAgo, String cursor, Integer limit) {
+        Date cutoffDate = daysBefore(daysAgo);
+        int pageSize = resolvePageSize(limit);
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+
+        List<Message> rows;
+        if (StringUtils.isBlank(cursor)) {
+            rows = messageRepository.findRecentActivePage(cutoffDate, pageRequest);
+        } else {
+            long[] keyset = PageCursor.decode(cursor, 2);
+            rows = messageRepository.findRecentActivePageBefore(cutoffDate, fromEpochMicros(keyset[0]), keyset[1],
+                    pageRequest);
+        }
+        return toPage(rows, pageSize, BY_CREATED_DATE_AND_ID);
+    }
+
+    /**
+     * Number of active messages created in the last daysAgo days. Windows up to
+     * {@link #ROLLING_WINDOW_DAYS} are summed from the in-memory rolling counters
+     * (hour precision at the oldest edge); longer ones fall back to a COUNT query.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long getRecentMessageCount(int daysAgo) {
+        if (daysAgo >= 0 && daysAgo <= ROLLING_WINDOW_DAYS) {
+            return statistics.countCreatedWithin(TimeUnit.DAYS.toMillis(daysAgo));
+        }
+        return messageRepository.countRecentActiveMessages(daysBefore(daysAgo));
+    }
+
+    /**
+     * Per-bucket creation counts for the last n minutes or hours, oldest first.
+     */
+    public Map<Date, Long> getCreatedTimeSeries(RollingMessageCounter.Resolution resolution, int buckets) {
+        return statistics.createdSeries(resolution, buckets);
     }
 
     @Transactional(readOnly = true)
@@ -90,12 +515,221 @@ public class MessageService {
     }
 
     @Transactional(readOnly = true)
-    public List<Message> searchMessages(String keyword) {
+    public MessageCounts getMessageCounts() {
+        return messageRepository.countTotalAndActive();
+    }
+
+    /**
+     * Precomputed statistics; O(1), never queries the database.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public MessageStatisticsSnapshot getStatistics() {
+        return statistics.getSnapshot();
+    }
+
+    /**
+     * Bounded full-text search, one page at a time.
+     *
+     * A blank keyword is just a keyset page by id, so it costs the same as
+     * {@link #getMessagePage}. Keyword results come from the in-process index
+     * ranked by relevance (ties by id); the cursor is the rank offset, and only
+     * the rows on the requested page are loaded from the database. Until the index
+     * has been built after startup, keyword searches fail with
+     * {@link SearchIndexWarmingException} rather than return partial results.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Message> searchMessages(String keyword, MessageSearchIndex.Operator operator,
+                                              String cursor, Integer limit) {
         // Trim using commons-lang 2.x
         String trimmedKeyword = StringUtils.trim(keyword);
         if (StringUtils.isEmpty(trimmedKeyword)) {
-            return getAllMessages();
+            return getMessagePage(cursor, limit);
+        }
+
+        long offset = StringUtils.isBlank(cursor) ? 0L : PageCursor.decode(cursor, 1)[0];
+        if (offset < 0 || offset > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        int pageSize = resolvePageSize(limit);
+        if (!searchIndex.isReady()) {
+            throw new SearchIndexWarmingException("Search index is warming up, retry shortly");
+        }
+        List<Long> ranked = searchIndex.search(trimmedKeyword, operator);
+        if (offset >= ranked.size()) {
+            return new CursorPage<Message>(new ArrayList<Message>(), null);
         }
-        return messageRepository.findByContentContainingIgnoreCase(trimmedKeyword);
+
+        int end = (int) Math.min(offset + pageSize, ranked.size());
+        String nextCursor = end < ranked.size() ? PageCursor.encode(end) : null;
+        return new CursorPage<Message>(loadInOrder(ranked.subList((int) offset, end)), nextCursor);
+    }
+
+    /**
+     * Populates the search index from the database once the context (and data.sql) is ready,
+     * unless {@link #seedStatistics} already restored it from a snapshot. This streams the
+     * whole table, so its cost grows with the table. Rows go into a fresh segment that is
+     * swapped in once complete, so searches never see a half-built index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildSearchIndex() {
+        if (stateSnapshotStore.isRestored()) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        searchIndex.beginRebuild();
+        long indexed;
+        try {
+            indexed = exportAllMessages(new Consumer<Message>() {
+                public void accept(Message message) {
+                    searchIndex.rebuildIndex(message);
+                }
+            });
+        } catch (RuntimeException e) {
+            searchIndex.abortRebuild();
+            throw e;
+        }
+        searchIndex.finishRebuild();
+        logger.info("Search index rebuilt with {} messages in {} ms", indexed, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Seeds the statistics counters from aggregate queries on context refresh,
+     * ahead of the scheduler so the first statistics run already sees them. Only
+     * aggregates come back to the application, but the per-author count and the
+     * bucket counts still scan in the database, so this grows with the table.
+     * When the last clean shutdown left a snapshot that still matches the table,
+     * the counters and the search index are restored from it instead.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional(readOnly = true)
+    public void seedStatistics() {
+        if (stateSnapshotStore.restore()) {
+            statistics.publish();
+            return;
+        }
+        long started = System.currentTimeMillis();
+        Map<String, Long> authorCounts = new HashMap<String, Long>();
+        for (Object[] row : messageRepository.countGroupedByAuthor()) {
+            authorCounts.put((String) row[0], (Long) row[1]);
+        }
+        statistics.reset(messageRepository.countTotalAndActive(), authorCounts);
+
+        // Per-bucket counts from GROUP BY: at most 1440 minute rows and 720 hour rows, whatever the table size
+        long now = System.currentTimeMillis();
+        Date dayAgo = new Date(now - TimeUnit.DAYS.toMillis(1));
+        for (Object[] row : messageRepository.countCreatedPerMinuteSince(dayAgo)) {
+            statistics.seedCreated(RollingMessageCounter.Resolution.MINUTE, (Date) row[0],
+                    ((Number) row[1]).longValue());
+        }
+        long shiftMillis = Math.floorMod(TimeZone.getDefault().getOffset(now), TimeUnit.HOURS.toMillis(1));
+        int shiftMinutes = (int) TimeUnit.MILLISECONDS.toMinutes(shiftMillis);
+        Date windowStart = daysBefore(ROLLING_WINDOW_DAYS);
+        for (Object[] row : messageRepository.countCreatedPerHourSince(windowStart, shiftMinutes)) {
+            Date bucketStart = new Date(((Date) row[0]).getTime() + shiftMillis);
+            statistics.seedCreated(RollingMessageCounter.Resolution.HOUR, bucketStart, ((Number) row[1]).longValue());
+        }
+        statistics.publish();
+        logger.info("Message statistics seeded: {} messages in {} ms", statistics.getSnapshot().getTotal(),
+                System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Snapshots the search index and the counters for the next start. Runs after the
+     * web server stopped and the beans that write through this service (write-behind
+     * queue, scheduled tasks) were destroyed, so no write is missed.
+     */
+    @PreDestroy
+    public void saveStateSnapshot() {
+        stateSnapshotStore.save();
+    }
+
+    // Fetches the rows for ranked ids and keeps the ranking order; ids deleted meanwhile are skipped
+    private List<Message> loadInOrder(List<Long> ids) {
+        Map<Long, Message> byId = new HashMap<Long, Message>();
+        for (Message message : messageRepository.findAllById(ids)) {
+            byId.put(message.getId(), message);
+        }
+        List<Message> ordered = new ArrayList<Message>(ids.size());
+        for (Long id : ids) {
+            Message message = byId.get(id);
+            if (message != null) {
+                ordered.add(message);
+            }
+        }
+        return ordered;
+    }
+
+    // Cached instances are shared between readers, so updates work on a copy
+    private static Message withUpdatedContent(Message source, String content, Date updatedDate, long changeSeq) {
+        Message copy = new Message();
+        copy.setId(source.getId());
+        copy.setAuthor(source.getAuthor());
+        copy.setCreatedDate(source.getCreatedDate());
+        copy.setActive(source.getActive());
+        copy.setContent(content);
+        copy.setUpdatedDate(updatedDate);
+        copy.setChangeSeq(changeSeq);
+        return copy;
+    }
+
+    // Defers side effects on in-memory structures until the surrounding transaction commits
+    private void afterCommit(final Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private Date daysBefore(int daysAgo) {
+        if (daysAgo < 0) {
+            throw new IllegalArgumentException("Days cannot be negative");
+        }
+        // Using deprecated Calendar API to calculate date
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.DAY_OF_MONTH, -daysAgo);
+        return calendar.getTime();
+    }
+
+    // rows holds up to pageSize + 1 entries; the extra one only signals that another page exists
+    private CursorPage<Message> toPage(List<Message> rows, int pageSize, Function<Message, String> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<Message>(rows, null);
+        }
+        List<Message> items = rows.subList(0, pageSize);
+        return new CursorPage<Message>(items, cursorOf.apply(items.get(pageSize - 1)));
+    }
+
+    // Microsecond precision: H2 timestamps carry more than java.util.Date's milliseconds,
+    // and a truncated cursor would skip rows that share the last row's created_date
+    private static long toEpochMicros(Date date) {
+        long seconds = Math.floorDiv(date.getTime(), 1000L);
+        long micros = date instanceof Timestamp
+                ? ((Timestamp) date).getNanos() / 1000
+                : Math.floorMod(date.getTime(), 1000L) * 1000;
+        return seconds * 1000000L + micros;
+    }
+
+    private static Timestamp fromEpochMicros(long epochMicros) {
+        Timestamp timestamp = new Timestamp(Math.floorDiv(epochMicros, 1000000L) * 1000L);
+        timestamp.setNanos((int) Math.floorMod(epochMicros, 1000000L) * 1000);
+        return timestamp;
     }
 }
@@ -0,0 +1,168 @@
+package com.nytour.demo.service;
+
+import com.nytour.demo.repository.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Carries the search index and the statistics counters across restarts of the
+ * durable profile (messages.storage.snapshot.enabled), so a restart does not have
+ * to rebuild them from the whole table.
+ *
+ * A clean shutdown writes both to state.snapshot next to the database, stamped
+ * with MAX(change_seq) and the row count. At startup the file is read once and
+ * deleted; it is used only if both values still match the table. Anything written
+ * after the snapshot, or a crash (which leaves no snapshot), falls back to the
+ * full rebuild.
+ */
+@Component
+public class MessageStateSnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageStateSnapshotStore.class);
+
+    private static final int FORMAT_VERSION = 1;
+
+    @Value("${messages.storage.snapshot.enabled:false}")
+    private boolean enabled;
+
+    @Value("${messages.storage.dir:./data}")
+    private String storageDir;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MessageSearchIndex searchIndex;
+
+    @Autowired
+    private MessageStatistics statistics;
+
+    @Autowired
+    private MessageChangeSequence changeSequence;
+
+    private volatile boolean restored;
+
+    /**
+     * Restores the counters and the search index if the snapshot is still current.
+     *
+     * @return false when there is none or it is stale; the caller then rebuilds from the table
+     */
+    public boolean restore() {
+        if (!enabled) {
+            return false;
+        }
+        File file = snapshotFile();
+        if (!file.exists()) {
+            logger.info("No state snapshot in {}, rebuilding from the table", storageDir);
+            return false;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+            try {
+                return restoreFrom(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read state snapshot {}, rebuilding from the table", file, e);
+            return false;
+        } finally {
+            // Used at most once: the writes that follow are not in it
+            if (!file.delete()) {
+                logger.warn("Could not delete state snapshot {}", file);
+            }
+        }
+    }
+
+    public boolean isRestored() {
+        return restored;
+    }
+
+    /**
+     * Writes the snapshot. Meant for shutdown, once no more writes can arrive; skipped
+     * while a write is still in flight, since its effect might be missing.
+     */
+    public void save() {
+        if (!enabled) {
+            return;
+        }
+        if (!searchIndex.isReady() || changeSequence.hasWritesInFlight()) {
+            logger.info("Search index not built or writes still in flight, no state snapshot written");
+            return;
+        }
+        long started = System.currentTimeMillis();
+        File file = snapshotFile();
+        File partial = new File(file.getPath() + ".tmp");
+        try {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(partial), 1 << 16));
+            try {
+                Long maxChangeSeq = messageRepository.findMaxChangeSeq();
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(maxChangeSeq == null ? 0 : maxChangeSeq);
+                out.writeLong(messageRepository.countAllRows());
+                statistics.writeTo(out);
+                searchIndex.writeTo(out);
+            } finally {
+                out.close();
+            }
+            // A crash while writing leaves only the partial file, which restore never reads
+            Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            logger.info("State snapshot of {} messages written in {} ms", searchIndex.size(),
+                    System.currentTimeMillis() - started);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not write state snapshot {}; the next start rebuilds from the table", file, e);
+            partial.delete();
+        }
+    }
+
+    private boolean restoreFrom(DataInputStream in) throws IOException {
+        long started = System.currentTimeMillis();
+        if (in.readInt() != FORMAT_VERSION) {
+            logger.info("State snapshot has an unknown format, rebuilding from the table");
+            return false;
+        }
+        long maxChangeSeq = in.readLong();
+        long rows = in.readLong();
+        Long currentMaxChangeSeq = messageRepository.findMaxChangeSeq();
+        long currentRows = messageRepository.countAllRows();
+        if (maxChangeSeq != (currentMaxChangeSeq == null ? 0 : currentMaxChangeSeq) || rows != currentRows) {
+            logger.info("State snapshot is stale (change_seq {} vs {}, rows {} vs {}), rebuilding from the table",
+                    maxChangeSeq, currentMaxChangeSeq, rows, currentRows);
+            return false;
+        }
+
+        statistics.readFrom(in);
+        searchIndex.beginRebuild();
+        try {
+            searchIndex.rebuildFrom(in);
+        } catch (IOException | RuntimeException e) {
+            searchIndex.abortRebuild();
+            throw e;
+        }
+        searchIndex.finishRebuild();
+        restored = true;
+        logger.info("Search index and statistics restored from state snapshot: {} messages in {} ms",
+                searchIndex.size(), System.currentTimeMillis() - started);
+        return true;
+    }
+
+    private File snapshotFile() {
+        return new File(storageDir, "state.snapshot");
+    }
+}
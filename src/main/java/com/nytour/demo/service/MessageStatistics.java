@@ -0,0 +1,207 @@
+package com.nytour.demo.service;
+
+import com.nytour.demo.model.Message;
+import com.nytour.demo.model.MessageCounts;
+import com.nytour.demo.model.MessageStatisticsSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+/**
+ * Precomputed message statistics.
+ *
+ * MessageService feeds committed creates and deletes into live counters (total,
+ * active, per author, and a {@link RollingMessageCounter} of creation times for the
+ * last 30 days). An immutable snapshot is republished at most once a second, and only
+ * when a counter changed or the minute rolled over, so /stats reads are O(1) and never
+ * touch the database. Counters are seeded from aggregate queries at startup, or read
+ * back from the snapshot written at the last clean shutdown (durable profile).
+ */
+@Component
+public class MessageStatistics {
+
+    private static final long MINUTE_MS = 60 * 1000L;
+    private static final long HOUR_MS = 60 * MINUTE_MS;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    private static final long WEEK_MS = 7 * DAY_MS;
+
+    private static final BiFunction<Long, Long, Long> SUM =
+            new BiFunction<Long, Long, Long>() {
+                public Long apply(Long a, Long b) {
+                    return a + b;
+                }
+            };
+
+    // Drops the key once its count reaches zero
+    private static final BiFunction<Object, Long, Long> DECREMENT =
+            new BiFunction<Object, Long, Long>() {
+                public Long apply(Object key, Long count) {
+                    return count > 1 ? count - 1 : null;
+                }
+            };
+
+    private static final Comparator<Map.Entry<String, Long>> BY_COUNT = new Comparator<Map.Entry<String, Long>>() {
+        public int compare(Map.Entry<String, Long> a, Map.Entry<String, Long> b) {
+            int byCount = a.getValue().compareTo(b.getValue());
+            return byCount != 0 ? byCount : b.getKey().compareTo(a.getKey());
+        }
+    };
+
+    @Value("${messages.stats.top-authors:20}")
+    private int topAuthorLimit;
+
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong active = new AtomicLong();
+    private final ConcurrentHashMap<String, Long> byAuthor = new ConcurrentHashMap<String, Long>();
+
+    private final RollingMessageCounter created = new RollingMessageCounter();
+
+    private final AtomicLong version = new AtomicLong();
+    private long publishedVersion = -1;
+    private long publishedMinute = -1;
+
+    private final AtomicReference<MessageStatisticsSnapshot> snapshot = new AtomicReference<MessageStatisticsSnapshot>(
+            new MessageStatisticsSnapshot(0, 0, 0, 0, 0, 0, Collections.<String, Long>emptyMap(), new Date()));
+
+    public MessageStatisticsSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Replaces all counters with freshly aggregated values from the database;
+     * recent creation counts are then fed in through {@link #seedCreated}.
+     */
+    public void reset(MessageCounts counts, Map<String, Long> authorCounts) {
+        total.set(counts.getTotal());
+        active.set(counts.getActive());
+        byAuthor.clear();
+        byAuthor.putAll(authorCounts);
+        created.clear();
+        version.incrementAndGet();
+    }
+
+    /**
+     * Replaces all counters with ones written by {@link #writeTo}, in place of
+     * {@link #reset} and seeding.
+     */
+    public void readFrom(DataInput in) throws IOException {
+        long totalCount = in.readLong();
+        long activeCount = in.readLong();
+        int authors = in.readInt();
+        Map<String, Long> authorCounts = new HashMap<String, Long>(authors * 2);
+        for (int i = 0; i < authors; i++) {
+            authorCounts.put(in.readUTF(), in.readLong());
+        }
+        created.readFrom(in);
+        total.set(totalCount);
+        active.set(activeCount);
+        byAuthor.clear();
+        byAuthor.putAll(authorCounts);
+        version.incrementAndGet();
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        Map<String, Long> authorCounts = new HashMap<String, Long>(byAuthor);
+        out.writeLong(total.get());
+        out.writeLong(active.get());
+        out.writeInt(authorCounts.size());
+        for (Map.Entry<String, Long> entry : authorCounts.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        created.writeTo(out);
+    }
+
+    public void seedCreated(RollingMessageCounter.Resolution resolution, Date bucketStart, long count) {
+        created.seed(resolution, bucketStart, count);
+        version.incrementAndGet();
+    }
+
+    public void onCreated(Message message) {
+        total.incrementAndGet();
+        if (!Boolean.FALSE.equals(message.getActive())) {
+            active.incrementAndGet();
+        }
+        byAuthor.merge(message.getAuthor(), 1L, SUM);
+        created.record(message.getCreatedDate(), 1);
+        version.incrementAndGet();
+    }
+
+    public void onDeleted(Message message) {
+        total.decrementAndGet();
+        if (!Boolean.FALSE.equals(message.getActive())) {
+            active.decrementAndGet();
+        }
+        byAuthor.computeIfPresent(message.getAuthor(), DECREMENT);
+        created.record(message.getCreatedDate(), -1);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Rebuilds the published snapshot if anything changed since the last one.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public synchronized void publish() {
+        long now = System.currentTimeMillis();
+        long currentMinute = now / MINUTE_MS;
+        long currentVersion = version.get();
+        if (currentVersion == publishedVersion && currentMinute == publishedMinute) {
+            return;
+        }
+
+        snapshot.set(new MessageStatisticsSnapshot(total.get(), active.get(), created.countWithin(HOUR_MS),
+                created.countWithin(DAY_MS), created.countWithin(WEEK_MS), byAuthor.size(), topAuthors(),
+                new Date(now)));
+        publishedVersion = currentVersion;
+        publishedMinute = currentMinute;
+    }
+
+    // Bounded heap keeps this O(authors * log k) rather than sorting every author
+    private Map<String, Long> topAuthors() {
+        PriorityQueue<Map.Entry<String, Long>> heap =
+                new PriorityQueue<Map.Entry<String, Long>>(topAuthorLimit + 1, BY_COUNT);
+        for (Map.Entry<String, Long> entry : byAuthor.entrySet()) {
+            heap.offer(new AbstractMap.SimpleImmutableEntry<String, Long>(entry));
+            if (heap.size() > topAuthorLimit) {
+                heap.poll();
+            }
+        }
+        List<Map.Entry<String, Long>> sorted = new ArrayList<Map.Entry<String, Long>>(heap);
+        Collections.sort(sorted, Collections.reverseOrder(BY_COUNT));
+
+        Map<String, Long> top = new LinkedHashMap<String, Long>();
+        for (Map.Entry<String, Long> entry : sorted) {
+            top.put(entry.getKey(), entry.getValue());
+        }
+        return Collections.unmodifiableMap(top);
+    }
+
+    /**
+     * Messages created within the last windowMillis (up to 30 days), summed from live buckets.
+     */
+    public long countCreatedWithin(long windowMillis) {
+        return created.countWithin(windowMillis);
+    }
+
+    public Map<Date, Long> createdSeries(RollingMessageCounter.Resolution resolution, int buckets) {
+        return created.series(resolution, buckets);
+    }
+}
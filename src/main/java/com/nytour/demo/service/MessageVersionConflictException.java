@@ -0,0 +1,12 @@
+package com.nytour.demo.service;
+
+/**
+ * Thrown when a conditional update names a version (change_seq) that is no
+ * longer current; the client should re-read and retry (mapped to HTTP 412).
+ */
+public class MessageVersionConflictException extends RuntimeException {
+
+    public MessageVersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,219 @@
+package com.nytour.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nytour.demo.model.Message;
+import com.nytour.demo.repository.MessageRepository;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional write-behind ingestion for createMessage (messages.write-behind.enabled).
+ *
+ * A POST gets its id from a block reserved on message_seq, is placed on a bounded
+ * buffer and acknowledged immediately. A single flusher thread drains the buffer
+ * and group-commits up to max-batch messages per transaction. When the buffer is
+ * full, callers get a {@link WriteBehindQueueFullException} instead of blocking.
+ * On shutdown the buffer is drained before the datasource goes away.
+ *
+ * Queued messages were already acknowledged, so a failed group commit is retried
+ * one message per transaction; only messages that still fail are written to the
+ * messages.dead-letter log (logs/dead-letter.log), one JSON line each.
+ */
+@Component
+public class MessageWriteBehindQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageWriteBehindQueue.class);
+
+    private static final Logger deadLetterLog = LoggerFactory.getLogger("messages.dead-letter");
+
+    @Value("${messages.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${messages.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${messages.write-behind.max-batch:500}")
+    private int maxBatch;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private BlockingQueue<Message> buffer;
+    private Thread flusher;
+    private volatile boolean running;
+
+    // Current id block, guarded by "this"
+    private long nextId = 1;
+    private long blockEnd = 0;
+
+    private final AtomicLong flushedCount = new AtomicLong();
+    private final AtomicLong retriedCount = new AtomicLong();
+    private final AtomicLong deadLetterCount = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        buffer = new ArrayBlockingQueue<Message>(capacity);
+        running = true;
+        flusher = new Thread(new Runnable() {
+            public void run() {
+                flushLoop();
+            }
+        }, "message-write-behind");
+        flusher.start();
+        logger.info("Write-behind ingestion enabled (capacity={}, maxBatch={})", capacity, maxBatch);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+
+        // Anything offered while the flusher was exiting is written here
+        List<Message> remaining = new ArrayList<Message>();
+        buffer.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+        logger.info("Write-behind queue drained ({} flushed, {} dead-lettered)", flushedCount.get(),
+                deadLetterCount.get());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Validates and queues a message, returning it with its final id assigned.
+     */
+    public Message enqueue(String content, String author) {
+        if (StringUtils.isBlank(content) || StringUtils.isBlank(author)) {
+            throw new IllegalArgumentException("Content and author cannot be empty");
+        }
+        // Checked here because a rejected insert would only surface after the message was acknowledged
+        if (content.length() > Message.CONTENT_MAX_LENGTH || author.length() > Message.AUTHOR_MAX_LENGTH) {
+            throw new IllegalArgumentException("Content cannot exceed " + Message.CONTENT_MAX_LENGTH
+                    + " and author " + Message.AUTHOR_MAX_LENGTH + " characters");
+        }
+        if (!running) {
+            throw new WriteBehindQueueFullException("Write-behind queue is not accepting messages");
+        }
+
+        Message message = new Message(content, author);
+        message.setId(allocateId());
+        if (!buffer.offer(message)) {
+            throw new WriteBehindQueueFullException("Write-behind queue is full, retry later");
+        }
+        return message;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> metrics = new LinkedHashMap<String, Object>();
+        metrics.put("enabled", enabled);
+        if (enabled) {
+            metrics.put("queued", buffer.size());
+            metrics.put("capacity", capacity);
+            metrics.put("flushed", flushedCount.get());
+            metrics.put("retried", retriedCount.get());
+            metrics.put("deadLettered", deadLetterCount.get());
+        }
+        return metrics;
+    }
+
+    private synchronized long allocateId() {
+        if (nextId > blockEnd) {
+            // Pooled semantics: a sequence value v covers ids (v - allocationSize, v]
+            blockEnd = messageRepository.reserveIdBlock();
+            nextId = blockEnd - Message.ID_ALLOCATION_SIZE + 1;
+        }
+        return nextId++;
+    }
+
+    private void flushLoop() {
+        List<Message> batch = new ArrayList<Message>(maxBatch);
+        while (running || !buffer.isEmpty()) {
+            try {
+                Message first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, maxBatch - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Message> batch) {
+        try {
+            messageService.persistQueuedMessages(batch);
+            flushedCount.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            logger.warn("Group commit of {} queued messages failed, retrying one by one", batch.size(), e);
+            retriedCount.addAndGet(batch.size());
+            for (Message message : batch) {
+                flushOne(message);
+            }
+        }
+    }
+
+    private void flushOne(Message message) {
+        try {
+            messageService.persistQueuedMessages(Collections.singletonList(message));
+            flushedCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            deadLetterCount.incrementAndGet();
+            logger.error("Queued message {} could not be persisted, written to the dead-letter log",
+                    message.getId(), e);
+            deadLetter(message, e);
+        }
+    }
+
+    private void deadLetter(Message message, RuntimeException cause) {
+        Map<String, Object> entry = new LinkedHashMap<String, Object>();
+        entry.put("id", message.getId());
+        entry.put("author", message.getAuthor());
+        entry.put("content", message.getContent());
+        entry.put("createdDate", message.getCreatedDate());
+        entry.put("error", NestedExceptionUtils.getMostSpecificCause(cause).toString());
+        try {
+            deadLetterLog.error(objectMapper.writeValueAsString(entry));
+        } catch (JsonProcessingException e) {
+            deadLetterLog.error("{}", entry);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.nytour.demo.service;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.nio.charset.Charset;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for keyset pagination.
+ *
+ * The token is the URL-safe Base64 form of one or more long values (e.g. the
+ * last id seen), so clients treat it as a black box and hand it back unchanged.
+ */
+public final class PageCursor {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String SEPARATOR = ":";
+
+    private PageCursor() {
+    }
+
+    public static String encode(long... values) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(values[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode(long...)}.
+     *
+     * @throws IllegalArgumentException if the token is malformed or has the wrong arity
+     */
+    public static long[] decode(String token, int expectedValues) {
+        if (StringUtils.isBlank(token)) {
+            throw new IllegalArgumentException("Cursor cannot be empty");
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), UTF_8);
+            String[] parts = StringUtils.split(raw, SEPARATOR);
+            if (parts.length != expectedValues) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            long[] values = new long[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                values[i] = Long.parseLong(parts[i]);
+            }
+            return values;
+        } catch (IllegalArgumentException e) {
+            // Covers both bad Base64 and NumberFormatException
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
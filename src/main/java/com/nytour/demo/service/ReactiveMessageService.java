@@ -0,0 +1,181 @@
+package com.nytour.demo.service;
+
+import com.nytour.demo.model.Message;
+import com.nytour.demo.model.MessageEvent;
+import com.nytour.demo.repository.ReactiveMessageRepository;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+
+/**
+ * Reactive counterpart of MessageService for the /api/v2 endpoints.
+ *
+ * Writes go through R2DBC as single auto-committed statements and then update the
+ * same in-memory structures as MessageService (search index, statistics, message
+ * cache, event stream), so both APIs observe one consistent view. Ids come from
+ * blocks reserved on message_seq, like the write-behind queue, so they never
+ * collide with ids Hibernate hands out.
+ */
+@Service
+public class ReactiveMessageService {
+
+    @Autowired
+    private ReactiveMessageRepository reactiveMessageRepository;
+
+    @Autowired
+    private MessageSearchIndex searchIndex;
+
+    @Autowired
+    private MessageStatistics statistics;
+
+    @Autowired
+    private MessageCache messageCache;
+
+    @Autowired
+    private MessageEventBroadcaster eventBroadcaster;
+
+    @Autowired
+    private MessageChangeSequence changeSequence;
+
+    @Value("${messages.soft-delete.enabled:true}")
+    private boolean softDelete;
+
+    // Current id block, guarded by "this"
+    private long nextId = 1;
+    private long blockEnd = 0;
+
+    /**
+     * Empty when the message does not exist. Shares the message cache with MessageService.
+     */
+    public Mono<Message> getMessageById(final Long id) {
+        return Mono.defer(() -> {
+            Message cached = messageCache.get(id);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            final long generation = messageCache.generation(id);
+            return reactiveMessageRepository.findById(id)
+                    .doOnNext(message -> messageCache.putIfCurrent(message, generation));
+        });
+    }
+
+    // Streamed in id order at the pace the subscriber requests
+    public Flux<Message> streamMessages() {
+        return reactiveMessageRepository.findAllOrderById();
+    }
+
+    public Flux<Message> streamMessagesByAuthor(String author) {
+        return reactiveMessageRepository.findByAuthorNewestFirst(author);
+    }
+
+    public Mono<Message> createMessage(final String content, final String author) {
+        if (StringUtils.isEmpty(content) || StringUtils.isEmpty(author)) {
+            return Mono.error(new IllegalArgumentException("Content and author cannot be empty"));
+        }
+        return allocateId()
+                .flatMap(id -> {
+                    Message message = new Message(content, author);
+                    message.setId(id);
+                    // Auto-committed statement, so the change number is released once it completes
+                    final long changeSeq = changeSequence.next();
+                    message.setChangeSeq(changeSeq);
+                    return reactiveMessageRepository.insertWithAssignedId(message)
+                            .doFinally(signal -> changeSequence.release(changeSeq));
+                })
+                .doOnNext(message -> {
+                    searchIndex.index(message);
+                    statistics.onCreated(message);
+                    eventBroadcaster.publish(new MessageEvent(MessageEvent.Type.CREATED, message.getId(), message));
+                });
+    }
+
+    /**
+     * Empty when the message does not exist.
+     */
+    public Mono<Message> updateMessage(final Long id, final String content) {
+        if (StringUtils.isEmpty(content)) {
+            return Mono.error(new IllegalArgumentException("Content cannot be empty"));
+        }
+        return applyUpdate(id, content)
+                .flatMap(updated -> {
+                    messageCache.evict(id);
+                    return reactiveMessageRepository.findById(id);
+                })
+                .doOnNext(message -> {
+                    searchIndex.index(message);
+                    eventBroadcaster.publish(new MessageEvent(MessageEvent.Type.UPDATED, id, message));
+                });
+    }
+
+    /**
+     * Emits true once the update is applied, nothing when the message does not exist.
+     * Retried with a fresh number when one with a later number committed first (see
+     * MessageService#updateMessage).
+     */
+    private Mono<Boolean> applyUpdate(final Long id, final String content) {
+        return Mono.defer(() -> {
+                    final long changeSeq = changeSequence.next();
+                    return reactiveMessageRepository.updateContent(id, content, new Date(), changeSeq)
+                            .doFinally(signal -> changeSequence.release(changeSeq));
+                })
+                .flatMap(updated -> updated > 0
+                        ? Mono.just(Boolean.TRUE)
+                        : reactiveMessageRepository.findChangeSeqById(id)
+                                .flatMap(current -> applyUpdate(id, content)));
+    }
+
+    /**
+     * Soft or hard delete, following messages.soft-delete.enabled like MessageService.
+     * Emits false when the message does not exist.
+     */
+    public Mono<Boolean> deleteMessage(final Long id) {
+        Mono<Message> deleted;
+        if (softDelete) {
+            deleted = Mono.defer(() -> {
+                final long changeSeq = changeSequence.next();
+                return reactiveMessageRepository.softDelete(id, new Date(), changeSeq)
+                        .doFinally(signal -> changeSequence.release(changeSeq));
+            });
+        } else {
+            deleted = reactiveMessageRepository.findById(id)
+                    .flatMap(message -> reactiveMessageRepository.deleteById(id)
+                            .filter(count -> count > 0)
+                            .map(count -> message));
+        }
+        return deleted
+                .doOnNext(message -> {
+                    messageCache.evict(id);
+                    searchIndex.remove(id);
+                    statistics.onDeleted(message);
+                    eventBroadcaster.publish(new MessageEvent(MessageEvent.Type.DELETED, id, null));
+                })
+                .map(message -> Boolean.TRUE)
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    private Mono<Long> allocateId() {
+        return Mono.defer(() -> {
+            Long id = takeFromBlock();
+            if (id != null) {
+                return Mono.just(id);
+            }
+            return reactiveMessageRepository.reserveIdBlock().map(this::installBlock);
+        });
+    }
+
+    private synchronized Long takeFromBlock() {
+        return nextId <= blockEnd ? Long.valueOf(nextId++) : null;
+    }
+
+    // Concurrent refills may each install a block; the remainder of the replaced one is skipped, never reused
+    private synchronized long installBlock(long end) {
+        blockEnd = end;
+        nextId = end - Message.ID_ALLOCATION_SIZE + 1;
+        return nextId++;
+    }
+}
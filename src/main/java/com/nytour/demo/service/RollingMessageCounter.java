@@ -0,0 +1,189 @@
+package com.nytour.demo.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rolling counts of messages by creation time, kept in two fixed rings:
+ * per-minute buckets for the last 24 hours and per-hour buckets for the last 30 days.
+ *
+ * Any window up to 30 days is answered by summing at most a few hundred buckets,
+ * independent of table size. Each slot remembers which absolute bucket it holds,
+ * so stale slots are recycled lazily on the next write instead of by a sweeper.
+ */
+public class RollingMessageCounter {
+
+    public enum Resolution {
+        MINUTE(60 * 1000L, 24 * 60),
+        HOUR(60 * 60 * 1000L, 30 * 24);
+
+        private final long bucketMillis;
+        private final int bucketCount;
+
+        Resolution(long bucketMillis, int bucketCount) {
+            this.bucketMillis = bucketMillis;
+            this.bucketCount = bucketCount;
+        }
+
+        public long getBucketMillis() {
+            return bucketMillis;
+        }
+
+        public int getBucketCount() {
+            return bucketCount;
+        }
+
+        public static Resolution parse(String value) {
+            for (Resolution resolution : values()) {
+                if (resolution.name().equalsIgnoreCase(value)) {
+                    return resolution;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported resolution: " + value);
+        }
+    }
+
+    private final BucketRing minutes = new BucketRing(Resolution.MINUTE);
+    private final BucketRing hours = new BucketRing(Resolution.HOUR);
+
+    public void record(Date createdDate, long delta) {
+        long now = System.currentTimeMillis();
+        long timestamp = createdDate == null ? now : createdDate.getTime();
+        minutes.add(timestamp, delta, now);
+        hours.add(timestamp, delta, now);
+    }
+
+    /**
+     * Adds count to the bucket of one resolution only, for seeding from per-bucket aggregates.
+     */
+    public void seed(Resolution resolution, Date bucketStart, long count) {
+        BucketRing ring = resolution == Resolution.MINUTE ? minutes : hours;
+        ring.add(bucketStart.getTime(), count, System.currentTimeMillis());
+    }
+
+    public void clear() {
+        minutes.clear();
+        hours.clear();
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        minutes.writeTo(out);
+        hours.writeTo(out);
+    }
+
+    /**
+     * Replaces both rings with ones written by {@link #writeTo}; buckets that have
+     * fallen out of the window since are recycled as usual.
+     */
+    public void readFrom(DataInput in) throws IOException {
+        minutes.readFrom(in);
+        hours.readFrom(in);
+    }
+
+    /**
+     * Messages created within the last windowMillis, at minute precision up to 24
+     * hours and hour precision beyond that (capped at 30 days).
+     */
+    public long countWithin(long windowMillis) {
+        long now = System.currentTimeMillis();
+        BucketRing ring = windowMillis <= Resolution.MINUTE.bucketMillis * Resolution.MINUTE.bucketCount
+                ? minutes : hours;
+        int buckets = (int) Math.min(ring.resolution.bucketCount,
+                (windowMillis + ring.resolution.bucketMillis - 1) / ring.resolution.bucketMillis);
+        return ring.sumLast(buckets, now);
+    }
+
+    /**
+     * Per-bucket counts for the last n buckets, oldest first, keyed by bucket start.
+     */
+    public Map<Date, Long> series(Resolution resolution, int buckets) {
+        if (buckets < 1 || buckets > resolution.bucketCount) {
+            throw new IllegalArgumentException("Buckets must be between 1 and " + resolution.bucketCount);
+        }
+        BucketRing ring = resolution == Resolution.MINUTE ? minutes : hours;
+        return ring.series(buckets, System.currentTimeMillis());
+    }
+
+    private static final class BucketRing {
+
+        private final Resolution resolution;
+        private final long[] counts;
+        // Absolute bucket number (epoch / bucketMillis) currently held by each slot
+        private final long[] bucketIds;
+
+        BucketRing(Resolution resolution) {
+            this.resolution = resolution;
+            this.counts = new long[resolution.bucketCount];
+            this.bucketIds = new long[resolution.bucketCount];
+            clear();
+        }
+
+        synchronized void add(long timestamp, long delta, long now) {
+            long current = Math.floorDiv(now, resolution.bucketMillis);
+            // Clock skew: a creation time slightly in the future counts in the current bucket
+            long bucket = Math.min(Math.floorDiv(timestamp, resolution.bucketMillis), current);
+            if (bucket <= current - counts.length) {
+                return;
+            }
+            int slot = (int) Math.floorMod(bucket, (long) counts.length);
+            if (bucketIds[slot] != bucket) {
+                bucketIds[slot] = bucket;
+                counts[slot] = 0;
+            }
+            counts[slot] = Math.max(0, counts[slot] + delta);
+        }
+
+        synchronized long sumLast(int buckets, long now) {
+            long current = Math.floorDiv(now, resolution.bucketMillis);
+            long sum = 0;
+            for (int i = 0; i < buckets; i++) {
+                sum += countOf(current - i);
+            }
+            return sum;
+        }
+
+        synchronized Map<Date, Long> series(int buckets, long now) {
+            long current = Math.floorDiv(now, resolution.bucketMillis);
+            Map<Date, Long> series = new LinkedHashMap<Date, Long>();
+            for (long bucket = current - buckets + 1; bucket <= current; bucket++) {
+                series.put(new Date(bucket * resolution.bucketMillis), countOf(bucket));
+            }
+            return series;
+        }
+
+        synchronized void writeTo(DataOutput out) throws IOException {
+            out.writeInt(counts.length);
+            for (int i = 0; i < counts.length; i++) {
+                out.writeLong(bucketIds[i]);
+                out.writeLong(counts[i]);
+            }
+        }
+
+        synchronized void readFrom(DataInput in) throws IOException {
+            if (in.readInt() != counts.length) {
+                throw new IOException("Expected " + counts.length + " " + resolution + " buckets");
+            }
+            for (int i = 0; i < counts.length; i++) {
+                bucketIds[i] = in.readLong();
+                counts[i] = in.readLong();
+            }
+        }
+
+        synchronized void clear() {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = 0;
+                bucketIds[i] = Long.MIN_VALUE;
+            }
+        }
+
+        // Caller holds the lock
+        private long countOf(long bucket) {
+            int slot = (int) Math.floorMod(bucket, (long) counts.length);
+            return bucketIds[slot] == bucket ? counts[slot] : 0;
+        }
+    }
+}
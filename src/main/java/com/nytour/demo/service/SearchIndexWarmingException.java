@@ -0,0 +1,12 @@
+package com.nytour.demo.service;
+
+/**
+ * Thrown by keyword search while the search index is still being built after
+ * startup, instead of returning incomplete results (mapped to HTTP 503).
+ */
+public class SearchIndexWarmingException extends RuntimeException {
+
+    public SearchIndexWarmingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,52 @@
+package com.nytour.demo.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/**
+ * Formats timestamps (yyyy-MM-dd HH:mm:ss, system time zone) for response
+ * envelopes and log lines.
+ *
+ * The formatter is immutable and thread-safe. Since "now" only changes once a
+ * second, it is formatted once per second and the same String is handed to every
+ * caller within that second.
+ */
+@Component
+public class TimestampService {
+
+    private final Clock clock = Clock.systemDefaultZone();
+    private final DateTimeFormatter formatter =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(clock.getZone());
+
+    private volatile FormattedSecond current = new FormattedSecond(Long.MIN_VALUE, null);
+
+    public String now() {
+        long epochSecond = clock.millis() / 1000;
+        FormattedSecond cached = current;
+        if (cached.epochSecond == epochSecond) {
+            return cached.text;
+        }
+        // Racing callers format the same second; whichever write lands last is equally valid
+        String text = formatter.format(Instant.ofEpochSecond(epochSecond));
+        current = new FormattedSecond(epochSecond, text);
+        return text;
+    }
+
+    public String format(Date date) {
+        return formatter.format(date.toInstant());
+    }
+
+    private static final class FormattedSecond {
+        final long epochSecond;
+        final String text;
+
+        FormattedSecond(long epochSecond, String text) {
+            this.epochSecond = epochSecond;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.nytour.demo.service;
+
+/**
+ * Thrown when the write-behind buffer cannot take another message; callers
+ * should back off and retry (mapped to HTTP 429).
+ */
+public class WriteBehindQueueFullException extends RuntimeException {
+
+    public WriteBehindQueueFullException(String message) {
+        super(message);
+    }
+}
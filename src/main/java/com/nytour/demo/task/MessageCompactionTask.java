@@ -0,0 +1,56 @@
+package com.nytour.demo.task;
+
+import com.nytour.demo.service.MessageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Physically removes soft-deleted messages once they are older than the retention.
+ *
+ * Runs in the off-peak window given by messages.compaction.cron and deletes in
+ * bounded batches, each in its own short transaction, up to max-batches per run;
+ * whatever is left is picked up by the next run. The retention also bounds how
+ * far behind a change-feed client may fall and still see deletions.
+ */
+@Component
+public class MessageCompactionTask {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageCompactionTask.class);
+
+    @Autowired
+    private MessageService messageService;
+
+    @Value("${messages.compaction.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${messages.compaction.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${messages.compaction.max-batches:100}")
+    private int maxBatches;
+
+    @Scheduled(cron = "${messages.compaction.cron:0 */15 1-5 * * *}")
+    public void purgeSoftDeletedMessages() {
+        Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(retentionHours));
+        long purged = 0;
+        int batches = 0;
+        int removed;
+        do {
+            removed = messageService.purgeSoftDeletedBatch(cutoff, batchSize);
+            purged += removed;
+            batches++;
+        } while (removed == batchSize && batches < maxBatches);
+
+        if (purged > 0) {
+            logger.info("Compaction purged {} soft-deleted messages in {} batches{}", purged, batches,
+                    removed == batchSize ? " (more remain)" : "");
+        }
+    }
+}
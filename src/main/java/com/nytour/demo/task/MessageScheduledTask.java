@@ -1,12 +1,17 @@
 package com.nytour.demo.task;
 
+import com.nytour.demo.model.MessageStatisticsSnapshot;
+import com.nytour.demo.service.MessageCacheMetrics;
+import com.nytour.demo.service.MessageEventBroadcaster;
 import com.nytour.demo.service.MessageService;
-import org.apache.log4j.Logger;
+import com.nytour.demo.service.MessageWriteBehindQueue;
+import com.nytour.demo.service.TimestampService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 
@@ -15,8 +20,8 @@ import java.util.Date;
  * 
  * MIGRATION CHALLENGES:
  * 1. Field injection (@Autowired on fields) instead of constructor injection
- * 2. Log4j 1.x (deprecated) will migrate to SLF4J or Logback
- * 3. SimpleDateFormat (not thread-safe) will migrate to DateTimeFormatter
+ * 2. Logging goes through SLF4J (Logback async appenders)
+ * 3. Timestamps are formatted by TimestampService (thread-safe DateTimeFormatter)
  * 4. Date and Calendar APIs (deprecated) will migrate to java.time (LocalDateTime, Instant)
  * 5. Fixed delay scheduling may change to more flexible cron expressions
  * 6. Manual date arithmetic using Calendar instead of Duration/Period
@@ -24,15 +29,23 @@ import java.util.Date;
 @Component
 public class MessageScheduledTask {
 
-    // Log4j 1.x (deprecated)
-    private static final Logger logger = Logger.getLogger(MessageScheduledTask.class);
+    private static final Logger logger = LoggerFactory.getLogger(MessageScheduledTask.class);
 
     // Field injection (legacy pattern, constructor injection preferred in modern Spring)
     @Autowired
     private MessageService messageService;
 
-    // SimpleDateFormat (not thread-safe, should be replaced with DateTimeFormatter)
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    @Autowired
+    private MessageCacheMetrics messageCacheMetrics;
+
+    @Autowired
+    private MessageWriteBehindQueue writeBehindQueue;
+
+    @Autowired
+    private MessageEventBroadcaster eventBroadcaster;
+
+    @Autowired
+    private TimestampService timestamps;
 
     /**
      * Scheduled task that runs every 60 seconds (every minute)
@@ -47,15 +60,18 @@ public class MessageScheduledTask {
         try {
             // Get current timestamp using deprecated Date API
             Date now = new Date();
-            logger.info("Execution Time: " + dateFormat.format(now));
+            logger.info("Execution Time: {}", timestamps.format(now));
+
+            // Get message statistics (precomputed snapshot, no database access)
+            MessageStatisticsSnapshot stats = messageService.getStatistics();
 
-            // Get message statistics
-            Long totalMessages = Long.valueOf(messageService.getAllMessages().size());
-            Long activeMessages = messageService.getActiveMessageCount();
+            logger.info("Total Messages: {}", stats.getTotal());
+            logger.info("Active Messages: {}", stats.getActive());
+            logger.info("Inactive Messages: {}", stats.getInactive());
 
-            logger.info("Total Messages: " + totalMessages);
-            logger.info("Active Messages: " + activeMessages);
-            logger.info("Inactive Messages: " + (totalMessages - activeMessages));
+            logger.info("Message Cache: {}", messageCacheMetrics.snapshot());
+            logger.info("Write-Behind Queue: {}", writeBehindQueue.snapshot());
+            logger.info("Event Stream: {}", eventBroadcaster.snapshot());
 
             // Calculate messages from last 7 days using deprecated Calendar API
             Calendar calendar = Calendar.getInstance();
@@ -63,24 +79,23 @@ public class MessageScheduledTask {
             calendar.add(Calendar.DAY_OF_MONTH, -7);
             Date sevenDaysAgo = calendar.getTime();
 
-            logger.info("Messages from last 7 days: " + 
-                messageService.getRecentMessages(7).size());
+            logger.info("Messages from last 7 days: {}", messageService.getRecentMessageCount(7));
 
             // Log next execution time using Calendar
             Calendar nextExecution = Calendar.getInstance();
             nextExecution.setTime(now);
             nextExecution.add(Calendar.MINUTE, 1);
-            logger.info("Next Execution: " + dateFormat.format(nextExecution.getTime()));
+            logger.info("Next Execution: {}", timestamps.format(nextExecution.getTime()));
 
             // Deprecated Integer constructor usage
             Integer statusCode = new Integer(200);
-            logger.info("Task Status Code: " + statusCode);
+            logger.info("Task Status Code: {}", statusCode);
 
             logger.info("Task completed successfully");
 
         } catch (Exception e) {
             logger.error("Error executing scheduled task", e);
-            logger.error("Error message: " + e.getMessage());
+            logger.error("Error message: {}", e.getMessage());
         }
 
         logger.info("========================================");
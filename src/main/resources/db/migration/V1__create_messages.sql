@@ -0,0 +1,28 @@
+-- Messages table, id sequence and the secondary indexes declared on the Message entity.
+-- Must stay in line with the entity mapping: the durable profile runs Hibernate with ddl-auto=validate.
+
+CREATE SEQUENCE message_seq START WITH 100 INCREMENT BY 50;
+
+CREATE TABLE messages (
+    id BIGINT NOT NULL,
+    content VARCHAR(500) NOT NULL,
+    author VARCHAR(255) NOT NULL,
+    created_date TIMESTAMP NOT NULL,
+    updated_date TIMESTAMP,
+    is_active CHAR(1),
+    change_seq BIGINT,
+    deleted_at TIMESTAMP,
+    PRIMARY KEY (id)
+);
+
+-- Author timeline, newest first (keyset pagination)
+CREATE INDEX idx_messages_author_created ON messages (author, created_date DESC, id DESC);
+
+-- Recent active messages, newest first
+CREATE INDEX idx_messages_active_created ON messages (is_active, created_date DESC, id DESC);
+
+-- Change feed
+CREATE INDEX idx_messages_change_seq ON messages (change_seq);
+
+-- Compaction of soft-deleted rows
+CREATE INDEX idx_messages_deleted_at ON messages (deleted_at);